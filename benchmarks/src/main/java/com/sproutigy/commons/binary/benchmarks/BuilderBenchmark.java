@@ -0,0 +1,79 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import com.sproutigy.commons.binary.Binary;
+import com.sproutigy.commons.binary.BinaryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building Binary from appended parts, either kept in memory or spilled to temporary file
+ *
+ * @author LukeAheadNET
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuilderBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    @Param({"16", "4096"})
+    public int appendSize;
+
+    /**
+     * Memory limit - when smaller than size, data is spilled to temporary file
+     */
+    @Param({"2097152", "32768"})
+    public int maxMemorySize;
+
+    private byte[] bytes;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bytes = Payload.generate(size, 0);
+    }
+
+    @Benchmark
+    public long appendBytes() throws IOException {
+        BinaryBuilder builder = new BinaryBuilder(0, maxMemorySize);
+        for (int offset = 0; offset < size; offset += appendSize) {
+            builder.append(bytes, offset, Math.min(appendSize, size - offset));
+        }
+        return build(builder);
+    }
+
+    @Benchmark
+    public long appendStream() throws IOException {
+        BinaryBuilder builder = new BinaryBuilder(0, maxMemorySize);
+        builder.append(new ByteArrayInputStream(bytes));
+        return build(builder);
+    }
+
+    private static long build(BinaryBuilder builder) throws IOException {
+        Binary binary = builder.build();
+        try {
+            return binary.length();
+        } finally {
+            binary.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import com.sproutigy.commons.binary.Binary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparison and hashing. Payload is compared to equal data held in a byte array,
+ * which is the worst case as all bytes have to be visited.
+ *
+ * @author LukeAheadNET
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComparisonBenchmark {
+
+    private Binary reference;
+
+
+    @Setup(Level.Trial)
+    public void setup(Payload payload) {
+        reference = Binary.from(payload.bytes().clone());
+    }
+
+    @Benchmark
+    public int compareTo(Payload payload) throws IOException {
+        return payload.binary().compareTo(reference);
+    }
+
+    @Benchmark
+    public boolean equals(Payload payload) throws IOException {
+        return payload.binary().equals(reference);
+    }
+
+    @Benchmark
+    public int hashCode(Payload payload) throws IOException {
+        return payload.binary().hashCode();
+    }
+}
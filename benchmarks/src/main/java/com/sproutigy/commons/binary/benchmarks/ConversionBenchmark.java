@@ -0,0 +1,45 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions of Binary data to other representations
+ *
+ * @author LukeAheadNET
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Benchmark
+    public byte[] asByteArray(Payload payload) throws IOException {
+        return payload.binary().asByteArray();
+    }
+
+    @Benchmark
+    public String asString(Payload payload) throws IOException {
+        return payload.binary().asString();
+    }
+
+    @Benchmark
+    public String asHex(Payload payload) throws IOException {
+        return payload.binary().asHex();
+    }
+
+    @Benchmark
+    public String asBase64(Payload payload) throws IOException {
+        return payload.binary().asBase64();
+    }
+}
@@ -0,0 +1,57 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import com.sproutigy.commons.binary.Binary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of Binary from textual representations.
+ * Decoding does not depend on Binary implementation, so only payload size varies.
+ *
+ * @author LukeAheadNET
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodingBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int size;
+
+    private String hex;
+    private String base64;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Binary binary = Binary.from(Payload.generate(size, 0));
+        hex = binary.asHex();
+        base64 = binary.asBase64();
+    }
+
+    @Benchmark
+    public Binary fromHex() {
+        return Binary.fromHex(hex);
+    }
+
+    @Benchmark
+    public Binary fromBase64() {
+        return Binary.fromBase64(base64);
+    }
+}
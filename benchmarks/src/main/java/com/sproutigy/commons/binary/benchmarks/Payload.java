@@ -0,0 +1,104 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import com.sproutigy.commons.binary.Binary;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Payload of given size exposed through every Binary implementation.
+ * Each call of {@link #binary()} creates new Binary instance over the same prepared data,
+ * so consumable sources can be read again and cached values (like hash code) are not reused between invocations.
+ *
+ * @author LukeAheadNET
+ */
+@State(Scope.Thread)
+public class Payload {
+
+    public enum Kind {
+        BYTE_ARRAY,
+        HEAP_BUFFER,
+        DIRECT_BUFFER,
+        FILE,
+        INPUT_STREAM,
+        CHANNEL
+    }
+
+    @Param({"16", "1024", "65536", "1048576"})
+    public int size;
+
+    @Param({"BYTE_ARRAY", "HEAP_BUFFER", "DIRECT_BUFFER", "FILE", "INPUT_STREAM", "CHANNEL"})
+    public Kind kind;
+
+    private byte[] bytes;
+    private ByteBuffer heapBuffer;
+    private ByteBuffer directBuffer;
+    private Path file;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        bytes = generate(size, 0);
+        heapBuffer = ByteBuffer.wrap(bytes.clone());
+        directBuffer = ByteBuffer.allocateDirect(size);
+        directBuffer.put(bytes).flip();
+        if (kind == Kind.FILE) {
+            file = Files.createTempFile("binary-benchmark", ".bin");
+            Files.write(file, bytes);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+
+    /**
+     * Printable ASCII data, so the same payload is valid as UTF-8 string
+     */
+    public static byte[] generate(int size, long seed) {
+        Random random = new Random(seed);
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (' ' + random.nextInt('~' - ' '));
+        }
+        return bytes;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public Binary binary() throws IOException {
+        switch (kind) {
+            case BYTE_ARRAY:
+                return Binary.from(bytes);
+            case HEAP_BUFFER:
+                return Binary.from(heapBuffer.duplicate());
+            case DIRECT_BUFFER:
+                return Binary.from(directBuffer.duplicate());
+            case FILE:
+                return Binary.fromFile(file);
+            case INPUT_STREAM:
+                return Binary.from(new ByteArrayInputStream(bytes), size);
+            case CHANNEL:
+                return Binary.from(Channels.newChannel(new ByteArrayInputStream(bytes)), size);
+            default:
+                throw new IllegalStateException("Unknown kind: " + kind);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sproutigy.commons.binary.benchmarks;
+
+import com.sproutigy.commons.binary.Binary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing Binary data to streams and channels and taking its subranges.
+ * Targets discard data, so only cost of the library is measured.
+ *
+ * @author LukeAheadNET
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferBenchmark {
+
+    @Benchmark
+    public long toOutputStream(Payload payload) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        payload.binary().to(out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long toChannel(Payload payload) throws IOException {
+        CountingChannel channel = new CountingChannel();
+        payload.binary().to(channel);
+        return channel.count;
+    }
+
+    /**
+     * Middle half of the data, consumed as byte array
+     */
+    @Benchmark
+    public byte[] subrange(Payload payload) throws IOException {
+        Binary binary = payload.binary();
+        return binary.subrange(payload.size / 4, payload.size / 2).asByteArray();
+    }
+
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static class CountingChannel implements WritableByteChannel {
+        private long count;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int len = src.remaining();
+            src.position(src.limit());
+            count += len;
+            return len;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
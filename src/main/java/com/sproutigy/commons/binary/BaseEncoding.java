@@ -1,10 +1,62 @@
 package com.sproutigy.commons.binary;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
+ * Table-driven hexadecimal and Base 64 codec.
+ * Encodes straight into target character arrays and decodes straight into target byte arrays,
+ * without intermediate copies of the data.
+ *
  * @author LukeAheadNET
  */
 public class BaseEncoding {
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Two hexadecimal digits for every byte value
+     */
+    private static final char[] HEX_PAIRS = new char[256 * 2];
+
+    private static final char[] BASE64_STANDARD = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final char[] BASE64_SAFE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final int INVALID = -1;
+    private static final int PAD = -2;
+    private static final int WHITESPACE = -3;
+
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[i * 2] = HEX_DIGITS[i >>> 4];
+            HEX_PAIRS[i * 2 + 1] = HEX_DIGITS[i & 0x0F];
+        }
+
+        Arrays.fill(HEX_VALUES, (byte) INVALID);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+        }
+
+        Arrays.fill(BASE64_VALUES, (byte) INVALID);
+        for (int i = 0; i < 64; i++) {
+            BASE64_VALUES[BASE64_STANDARD[i]] = (byte) i;
+            BASE64_VALUES[BASE64_SAFE[i]] = (byte) i;
+        }
+        BASE64_VALUES['='] = PAD;
+        BASE64_VALUES['.'] = PAD;
+        BASE64_VALUES[' '] = WHITESPACE;
+        BASE64_VALUES['\t'] = WHITESPACE;
+        BASE64_VALUES['\r'] = WHITESPACE;
+        BASE64_VALUES['\n'] = WHITESPACE;
+    }
+
     public BaseEncoding() {
     }
 
@@ -37,4 +89,311 @@ public class BaseEncoding {
         SAFE
     }
 
+
+    /**
+     * Encodes remaining bytes of the buffer as upper-case hexadecimal digits. Buffer is consumed.
+     *
+     * @return number of written characters
+     */
+    public static int encodeHex(ByteBuffer src, char[] target, int targetOffset) {
+        int position = targetOffset;
+        if (src.hasArray()) {
+            byte[] bytes = src.array();
+            int end = src.arrayOffset() + src.limit();
+            for (int i = src.arrayOffset() + src.position(); i < end; i++) {
+                int pair = (bytes[i] & 0xFF) << 1;
+                target[position++] = HEX_PAIRS[pair];
+                target[position++] = HEX_PAIRS[pair + 1];
+            }
+            src.position(src.limit());
+        } else {
+            while (src.hasRemaining()) {
+                int pair = (src.get() & 0xFF) << 1;
+                target[position++] = HEX_PAIRS[pair];
+                target[position++] = HEX_PAIRS[pair + 1];
+            }
+        }
+        return position - targetOffset;
+    }
+
+    public static String encodeHex(byte[] bytes, int offset, int length) {
+        char[] hex = new char[length * 2];
+        encodeHex(ByteBuffer.wrap(bytes, offset, length), hex, 0);
+        return new String(hex);
+    }
+
+    /**
+     * Decodes hexadecimal digits, both lower-case and upper-case
+     *
+     * @throws IllegalArgumentException when number of digits is odd or there is a non-hexadecimal character
+     */
+    public static byte[] decodeHex(CharSequence hex) {
+        int length = hex.length();
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("Hexadecimal string has to have even number of digits");
+        }
+
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((hexValue(hex.charAt(i * 2)) << 4) | hexValue(hex.charAt(i * 2 + 1)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes even number of hexadecimal digits from the array
+     *
+     * @return number of written bytes
+     */
+    public static int decodeHex(char[] src, int offset, int length, byte[] target, int targetOffset) {
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("Hexadecimal string has to have even number of digits");
+        }
+
+        int position = targetOffset;
+        for (int i = offset; i < offset + length; i += 2) {
+            target[position++] = (byte) ((hexValue(src[i]) << 4) | hexValue(src[i + 1]));
+        }
+        return position - targetOffset;
+    }
+
+    private static int hexValue(char c) {
+        int value = c < 128 ? HEX_VALUES[c] : INVALID;
+        if (value == INVALID) {
+            throw new IllegalArgumentException("Invalid hexadecimal character: " + c);
+        }
+        return value;
+    }
+
+    /**
+     * @return number of Base 64 characters representing data of given length
+     */
+    public static long base64Length(long dataLength, Padding padding) {
+        long full = dataLength / 3 * 4;
+        int rest = (int) (dataLength % 3);
+        if (rest == 0) {
+            return full;
+        }
+        return full + (padding == Padding.NO ? rest + 1 : 4);
+    }
+
+    public static String encodeBase64(byte[] bytes, int offset, int length, Dialect dialect, Padding padding) {
+        char[] chars = new char[(int) base64Length(length, padding)];
+        Base64Encoder encoder = new Base64Encoder(dialect, padding);
+        int position = encoder.encode(ByteBuffer.wrap(bytes, offset, length), chars, 0);
+        encoder.finish(chars, position);
+        return new String(chars);
+    }
+
+    /**
+     * Decodes both standard and URL/filename-safe Base 64 dialects as described in RFC 4686.
+     * Padding is optional and may be represented by equals ('=') or dot ('.') characters.
+     * Whitespace characters are skipped.
+     *
+     * @throws IllegalArgumentException when there is a character from outside of Base 64 alphabet
+     */
+    public static byte[] decodeBase64(CharSequence base64) {
+        //trailing padding, possibly mixed with whitespaces
+        int end = base64.length();
+        while (end > 0 && base64.charAt(end - 1) < 128
+                && (BASE64_VALUES[base64.charAt(end - 1)] == PAD || BASE64_VALUES[base64.charAt(end - 1)] == WHITESPACE)) {
+            end--;
+        }
+
+        //exact when there are no whitespaces
+        byte[] bytes = new byte[(int) ((long) end * 3 / 4)];
+        int position = 0;
+        int accumulator = 0;
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            char c = base64.charAt(i);
+            int value = c < 128 ? BASE64_VALUES[c] : INVALID;
+            if (value < 0) {
+                if (value == WHITESPACE) {
+                    continue;
+                }
+                throw new IllegalArgumentException("Invalid Base 64 character: " + c);
+            }
+            accumulator = (accumulator << 6) | value;
+            if (++count == 4) {
+                bytes[position++] = (byte) (accumulator >> 16);
+                bytes[position++] = (byte) (accumulator >> 8);
+                bytes[position++] = (byte) accumulator;
+                accumulator = 0;
+                count = 0;
+            }
+        }
+
+        if (count == 1) {
+            throw new IllegalArgumentException("Invalid Base 64 length");
+        } else if (count == 2) {
+            bytes[position++] = (byte) (accumulator >> 4);
+        } else if (count == 3) {
+            bytes[position++] = (byte) (accumulator >> 10);
+            bytes[position++] = (byte) (accumulator >> 2);
+        }
+
+        if (position != bytes.length) {
+            return Arrays.copyOf(bytes, position);
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Incremental Base 64 decoder, accepts the same input as {@link #decodeBase64(CharSequence)}.
+     * Characters may be provided in chunks of any size.
+     */
+    public static class Base64Decoder {
+        private int accumulator;
+        private int count;
+        private boolean padded;
+
+        /**
+         * Target has to have space for {@code length * 3 / 4 + 3} bytes.
+         *
+         * @return number of written bytes
+         */
+        public int decode(char[] src, int offset, int length, byte[] target, int targetOffset) {
+            int position = targetOffset;
+            for (int i = offset; i < offset + length; i++) {
+                char c = src[i];
+                int value = c < 128 ? BASE64_VALUES[c] : INVALID;
+                if (value < 0) {
+                    if (value == PAD) {
+                        padded = true;
+                        continue;
+                    }
+                    if (value == WHITESPACE) {
+                        continue;
+                    }
+                    throw new IllegalArgumentException("Invalid Base 64 character: " + c);
+                }
+                if (padded) {
+                    throw new IllegalArgumentException("Unexpected Base 64 character after padding: " + c);
+                }
+                accumulator = (accumulator << 6) | value;
+                if (++count == 4) {
+                    target[position++] = (byte) (accumulator >> 16);
+                    target[position++] = (byte) (accumulator >> 8);
+                    target[position++] = (byte) accumulator;
+                    accumulator = 0;
+                    count = 0;
+                }
+            }
+            return position - targetOffset;
+        }
+
+        /**
+         * Decodes last incomplete group of characters
+         *
+         * @return number of written bytes (up to 2)
+         */
+        public int finish(byte[] target, int targetOffset) {
+            int position = targetOffset;
+            if (count == 1) {
+                throw new IllegalArgumentException("Invalid Base 64 length");
+            } else if (count == 2) {
+                target[position++] = (byte) (accumulator >> 4);
+            } else if (count == 3) {
+                target[position++] = (byte) (accumulator >> 10);
+                target[position++] = (byte) (accumulator >> 2);
+            }
+            accumulator = 0;
+            count = 0;
+            padded = false;
+            return position - targetOffset;
+        }
+    }
+
+
+    /**
+     * Incremental Base 64 encoder. Data may be provided in chunks of any size,
+     * bytes that do not form full 3-byte group are kept until next chunk or finish.
+     */
+    public static class Base64Encoder {
+        private final char[] alphabet;
+        private final char pad;
+        private int carry;
+        private int carryCount;
+
+        public Base64Encoder(Dialect dialect, Padding padding) {
+            this.alphabet = dialect == Dialect.SAFE ? BASE64_SAFE : BASE64_STANDARD;
+            this.pad = padding == Padding.STANDARD ? '=' : padding == Padding.SAFE ? '.' : 0;
+        }
+
+        /**
+         * Encodes remaining bytes of the buffer. Buffer is consumed.
+         * Target has to have space for {@code (remaining + 2) / 3 * 4} characters.
+         *
+         * @return number of written characters
+         */
+        public int encode(ByteBuffer src, char[] target, int targetOffset) {
+            int position = targetOffset;
+            while (carryCount > 0 && carryCount < 3 && src.hasRemaining()) {
+                carry = (carry << 8) | (src.get() & 0xFF);
+                carryCount++;
+            }
+            if (carryCount == 3) {
+                position = encodeGroup(carry, target, position);
+                carry = 0;
+                carryCount = 0;
+            }
+
+            if (src.hasArray()) {
+                byte[] bytes = src.array();
+                int i = src.arrayOffset() + src.position();
+                int end = i + src.remaining() / 3 * 3;
+                for (; i < end; i += 3) {
+                    position = encodeGroup(((bytes[i] & 0xFF) << 16) | ((bytes[i + 1] & 0xFF) << 8) | (bytes[i + 2] & 0xFF), target, position);
+                }
+                src.position(i - src.arrayOffset());
+            } else {
+                while (src.remaining() >= 3) {
+                    position = encodeGroup(((src.get() & 0xFF) << 16) | ((src.get() & 0xFF) << 8) | (src.get() & 0xFF), target, position);
+                }
+            }
+
+            while (src.hasRemaining()) {
+                carry = (carry << 8) | (src.get() & 0xFF);
+                carryCount++;
+            }
+            return position - targetOffset;
+        }
+
+        /**
+         * Encodes bytes kept from previous chunks and appends padding
+         *
+         * @return number of written characters (up to 4)
+         */
+        public int finish(char[] target, int targetOffset) {
+            int position = targetOffset;
+            if (carryCount == 1) {
+                target[position++] = alphabet[(carry >> 2) & 0x3F];
+                target[position++] = alphabet[(carry << 4) & 0x3F];
+                if (pad != 0) {
+                    target[position++] = pad;
+                    target[position++] = pad;
+                }
+            } else if (carryCount == 2) {
+                target[position++] = alphabet[(carry >> 10) & 0x3F];
+                target[position++] = alphabet[(carry >> 4) & 0x3F];
+                target[position++] = alphabet[(carry << 2) & 0x3F];
+                if (pad != 0) {
+                    target[position++] = pad;
+                }
+            }
+            carry = 0;
+            carryCount = 0;
+            return position - targetOffset;
+        }
+
+        private int encodeGroup(int group, char[] target, int position) {
+            target[position] = alphabet[group >>> 18];
+            target[position + 1] = alphabet[(group >>> 12) & 0x3F];
+            target[position + 2] = alphabet[(group >>> 6) & 0x3F];
+            target[position + 3] = alphabet[group & 0x3F];
+            return position + 4;
+        }
+    }
 }
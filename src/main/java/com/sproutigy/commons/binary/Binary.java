@@ -2,10 +2,17 @@ package com.sproutigy.commons.binary;
 
 import com.sproutigy.commons.binary.impl.*;
 
-import javax.xml.bind.DatatypeConverter;
 import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
@@ -13,7 +20,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
 
 /**
  * Binary represents raw data that may be represented by different data structures and easily converted from one to another.
@@ -29,6 +44,13 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
 
     protected static final int BITS_PER_BYTE = 8;
 
+    /**
+     * Number of bytes encoded at once by streaming encoders, divisible by both 2 and 3
+     */
+    private static final int ENCODING_CHUNK_SIZE = 3 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> PRIMITIVE_BUFFER = new ThreadLocal<>();
+
     public static final Charset DEFAULT_CHARSET = Charsets.UTF_8;
 
 
@@ -36,6 +58,11 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
 
     protected Charset charset;
 
+    /**
+     * Cached hash code, 0 when not computed yet (same idiom as String, safe to publish without synchronization)
+     */
+    private int hash;
+
 
     protected Binary() { }
 
@@ -88,6 +115,14 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
 
     public abstract InputStream asStream() throws IOException;
 
+    /**
+     * Creates sequential reader of primitives, variable-length integers and length-prefixed frames.
+     * Reader of consumable data consumes it.
+     */
+    public BinaryReader reader() {
+        return new BinaryReader(this);
+    }
+
     public ByteBuffer asByteBuffer() throws IOException {
         return asByteBuffer(true);
     }
@@ -96,6 +131,16 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         return (ByteBuffer)ByteBuffer.wrap(asByteArray(modifiable)).position(0);
     }
 
+    /**
+     * Provides buffers that expose data kept in memory without copying, in order of data.
+     * Returned buffers should not be modified.
+     *
+     * @return underlying buffers or null when data is not available in memory and has to be read from its source
+     */
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        return null;
+    }
+
     public String asStringASCII() throws IOException {
         return asString(Charsets.US_ASCII);
     }
@@ -130,32 +175,344 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         return new String(asByteArray(false), charset);
     }
 
+    /**
+     * @return first byte of data, read without copying the whole data
+     * @throws IndexOutOfBoundsException when data is empty
+     */
     public byte asByte() throws IOException {
-        return asByteArray(false)[0];
+        if (!isConsumable()) {
+            return byteAt(0);
+        }
+
+        InputStream in = asStream();
+        try {
+            int b = in.read();
+            if (b == EOF) {
+                throw new IndexOutOfBoundsException("Out of data range");
+            }
+            return (byte) b;
+        } finally {
+            in.close();
+        }
     }
 
     public short asShort() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Short.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getShort();
+        return asShort(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Decodes data of exactly 2 bytes. Only needed bytes are read and no buffer is allocated
+     * when data is available for random access.
+     */
+    public short asShort(ByteOrder order) throws IOException {
+        return (short) asPrimitive(Short.SIZE / BITS_PER_BYTE, order);
     }
 
     public int asInteger() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Integer.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getInt();
+        return asInteger(ByteOrder.BIG_ENDIAN);
+    }
+
+    public int asInteger(ByteOrder order) throws IOException {
+        return (int) asPrimitive(Integer.SIZE / BITS_PER_BYTE, order);
     }
 
     public long asLong() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Long.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getLong();
+        return asLong(ByteOrder.BIG_ENDIAN);
+    }
+
+    public long asLong(ByteOrder order) throws IOException {
+        return asPrimitive(Long.SIZE / BITS_PER_BYTE, order);
     }
 
     public float asFloat() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Float.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getFloat();
+        return asFloat(ByteOrder.BIG_ENDIAN);
+    }
+
+    public float asFloat(ByteOrder order) throws IOException {
+        return Float.intBitsToFloat(asInteger(order));
     }
 
     public double asDouble() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Double.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getDouble();
+        return asDouble(ByteOrder.BIG_ENDIAN);
+    }
+
+    public double asDouble(ByteOrder order) throws IOException {
+        return Double.longBitsToDouble(asLong(order));
     }
 
     public char asCharacter() throws IOException {
-        return ((ByteBuffer)ByteBuffer.allocate(Character.SIZE / BITS_PER_BYTE).put(asByteArray(false)).flip()).getChar();
+        return asCharacter(ByteOrder.BIG_ENDIAN);
+    }
+
+    public char asCharacter(ByteOrder order) throws IOException {
+        return (char) asShort(order);
+    }
+
+    /**
+     * Decodes whole data as primitive value of given size
+     *
+     * @throws BufferUnderflowException when data is shorter than the value
+     * @throws BufferOverflowException when data is longer than the value
+     */
+    private long asPrimitive(int size, ByteOrder order) throws IOException {
+        if (!isConsumable()) {
+            long length = length();
+            if (length < size) {
+                throw new BufferUnderflowException();
+            }
+            if (length > size) {
+                throw new BufferOverflowException();
+            }
+            switch (size) {
+                case 2:
+                    return getShort(0, order);
+                case 4:
+                    return getInt(0, order);
+                default:
+                    return getLong(0, order);
+            }
+        }
+
+        InputStream in = asStream();
+        try {
+            long value = 0;
+            for (int i = 0; i < size; i++) {
+                int b = in.read();
+                if (b == EOF) {
+                    throw new BufferUnderflowException();
+                }
+                if (order == ByteOrder.BIG_ENDIAN) {
+                    value = (value << BITS_PER_BYTE) | b;
+                } else {
+                    value |= (long) b << (i * BITS_PER_BYTE);
+                }
+            }
+            if (in.read() != EOF) {
+                throw new BufferOverflowException();
+            }
+            return value;
+        } finally {
+            in.close();
+        }
+    }
+
+    public int[] asIntArray() throws IOException {
+        return asIntArray(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Decodes whole data as array of int values through typed buffer view
+     *
+     * @throws IllegalStateException when length is not a multiple of 4 bytes
+     */
+    public int[] asIntArray(ByteOrder order) throws IOException {
+        IntBuffer view = typedView(Integer.SIZE / BITS_PER_BYTE, order).asIntBuffer();
+        int[] values = new int[view.remaining()];
+        view.get(values);
+        return values;
+    }
+
+    public long[] asLongArray() throws IOException {
+        return asLongArray(ByteOrder.BIG_ENDIAN);
+    }
+
+    public long[] asLongArray(ByteOrder order) throws IOException {
+        LongBuffer view = typedView(Long.SIZE / BITS_PER_BYTE, order).asLongBuffer();
+        long[] values = new long[view.remaining()];
+        view.get(values);
+        return values;
+    }
+
+    public double[] asDoubleArray() throws IOException {
+        return asDoubleArray(ByteOrder.BIG_ENDIAN);
+    }
+
+    public double[] asDoubleArray(ByteOrder order) throws IOException {
+        DoubleBuffer view = typedView(Double.SIZE / BITS_PER_BYTE, order).asDoubleBuffer();
+        double[] values = new double[view.remaining()];
+        view.get(values);
+        return values;
+    }
+
+    /**
+     * Data kept in single memory region is viewed directly, other data is read into byte array first
+     */
+    private ByteBuffer typedView(int elementSize, ByteOrder order) throws IOException {
+        ByteBuffer buffer;
+        ByteBuffer[] buffers = getUnderlyingByteBuffers();
+        if (buffers != null && buffers.length == 1) {
+            buffer = buffers[0];
+        } else {
+            buffer = ByteBuffer.wrap(asByteArray(false));
+        }
+        if (buffer.remaining() % elementSize != 0) {
+            throw new IllegalStateException("Length is not a multiple of " + elementSize + " bytes");
+        }
+        return buffer.order(order);
+    }
+
+    /**
+     * Reads bytes starting at given position into remaining space of the buffer.
+     * Random access is available for non-consumable data only and does not require reading preceding data
+     * when data is kept in memory or in a file.
+     *
+     * @param position position of the first byte to read
+     * @param dst target buffer, its position is advanced by number of read bytes
+     * @return number of read bytes or -1 when position is at the end of data
+     * @throws UnsupportedOperationException when data is consumable
+     */
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (isConsumable()) {
+            throw new UnsupportedOperationException("Random access is not supported by consumable data");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        ByteBuffer[] buffers = getUnderlyingByteBuffers();
+        if (buffers != null) {
+            return readFromBuffers(buffers, position, dst);
+        }
+
+        InputStream in = asStream();
+        try {
+            long remaining = position;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() == EOF) {
+                        return EOF;
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+
+            if (dst.hasArray()) {
+                int readlen = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+                if (readlen > 0) {
+                    dst.position(dst.position() + readlen);
+                }
+                return readlen;
+            }
+
+            BufferAllocator allocator = BufferAllocator.getDefault();
+            ByteBuffer buffer = allocator.allocate(Math.min(dst.remaining(), ChunkCursor.CHUNK_SIZE));
+            try {
+                int readlen = in.read(buffer.array(), buffer.arrayOffset(), buffer.limit());
+                if (readlen > 0) {
+                    dst.put(buffer.array(), buffer.arrayOffset(), readlen);
+                }
+                return readlen;
+            } finally {
+                allocator.release(buffer);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int readFromBuffers(ByteBuffer[] buffers, long position, ByteBuffer dst) {
+        int count = 0;
+        long skip = position;
+        for (ByteBuffer buffer : buffers) {
+            if (!dst.hasRemaining()) {
+                break;
+            }
+            if (skip >= buffer.remaining()) {
+                skip -= buffer.remaining();
+                continue;
+            }
+            ByteBuffer source = buffer.duplicate();
+            source.position(source.position() + (int) skip);
+            skip = 0;
+            if (source.remaining() > dst.remaining()) {
+                source.limit(source.position() + dst.remaining());
+            }
+            count += source.remaining();
+            dst.put(source);
+        }
+        return count == 0 ? EOF : count;
+    }
+
+    /**
+     * @return byte at given position
+     * @throws IndexOutOfBoundsException when position is out of data range
+     */
+    public byte byteAt(long position) throws IOException {
+        return (byte) readPrimitive(position, 1, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @return big-endian short value at given position
+     */
+    public short getShort(long position) throws IOException {
+        return getShort(position, ByteOrder.BIG_ENDIAN);
+    }
+
+    public short getShort(long position, ByteOrder order) throws IOException {
+        return (short) readPrimitive(position, Short.SIZE / BITS_PER_BYTE, order);
+    }
+
+    /**
+     * @return big-endian int value at given position
+     */
+    public int getInt(long position) throws IOException {
+        return getInt(position, ByteOrder.BIG_ENDIAN);
+    }
+
+    public int getInt(long position, ByteOrder order) throws IOException {
+        return (int) readPrimitive(position, Integer.SIZE / BITS_PER_BYTE, order);
+    }
+
+    /**
+     * @return big-endian long value at given position
+     */
+    public long getLong(long position) throws IOException {
+        return getLong(position, ByteOrder.BIG_ENDIAN);
+    }
+
+    public long getLong(long position, ByteOrder order) throws IOException {
+        return readPrimitive(position, Long.SIZE / BITS_PER_BYTE, order);
+    }
+
+    /**
+     * Reads primitive value through a per-thread scratch buffer, so random access does not allocate.
+     * Buffer is taken out of the thread while in use, thus nested reads of other Binaries get their own.
+     */
+    private long readPrimitive(long position, int size, ByteOrder order) throws IOException {
+        ByteBuffer buffer = PRIMITIVE_BUFFER.get();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(Long.SIZE / BITS_PER_BYTE);
+        } else {
+            PRIMITIVE_BUFFER.set(null);
+        }
+
+        try {
+            buffer.clear().limit(size);
+            while (buffer.hasRemaining()) {
+                if (read(position + buffer.position(), buffer) == EOF) {
+                    throw new IndexOutOfBoundsException("Out of data range");
+                }
+            }
+            buffer.flip();
+            buffer.order(order);
+            switch (size) {
+                case 1:
+                    return buffer.get();
+                case 2:
+                    return buffer.getShort();
+                case 4:
+                    return buffer.getInt();
+                default:
+                    return buffer.getLong();
+            }
+        } finally {
+            PRIMITIVE_BUFFER.set(buffer);
+        }
     }
 
     /**
@@ -210,28 +567,106 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
     }
 
     public void to(OutputStream out) throws IOException {
-        byte[] buffer;
-        if (hasLength() && length() < 4096) {
-            buffer = new byte[(int)length()];
-        } else {
-            buffer = new byte[4096];
-        }
-
         InputStream in = asStream();
         try {
-            int len;
-            while ((len = in.read(buffer)) != EOF) {
-                out.write(buffer, 0, len);
-            }
+            transfer(in, out);
         } finally {
             in.close();
         }
     }
 
+    /**
+     * Writes data to the channel. Data kept in memory is written directly from its buffers,
+     * other data is transferred by the file channel when the target is a file, or copied through a stream otherwise.
+     * Implementations may provide more efficient ways, like sendfile for files.
+     */
     public void to(WritableByteChannel channel) throws IOException {
-        try (OutputStream out = Channels.newOutputStream(channel)) {
-            to(out);
+        ByteBuffer[] buffers = getUnderlyingByteBuffers();
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            return;
+        }
+
+        if (channel instanceof FileChannel) {
+            InputStream in = asStream();
+            try {
+                transferFrom(Channels.newChannel(in), (FileChannel) channel);
+            } finally {
+                in.close();
+            }
+            return;
+        }
+
+        OutputStream out = Channels.newOutputStream(channel);
+        to(out);
+        out.flush();
+    }
+
+    public static long writeAll(GatheringByteChannel channel, Binary... binaries) throws IOException {
+        return writeAll(channel, Arrays.asList(binaries));
+    }
+
+    /**
+     * Writes multiple Binaries to the channel in order with as few system calls as possible.
+     * Consecutive data kept in memory is written with gathering writes of all its buffers at once,
+     * files are transferred with FileChannel.transferTo(). Channel should be in blocking mode.
+     *
+     * @return number of written bytes
+     */
+    public static long writeAll(GatheringByteChannel channel, Iterable<? extends Binary> binaries) throws IOException {
+        List<Binary> batch = new ArrayList<>();
+        for (Binary binary : binaries) {
+            batch.add(binary);
+        }
+
+        long written = 0;
+        try (BinaryWriteCursor cursor = new BinaryWriteCursor(concat(batch))) {
+            while (cursor.hasRemaining()) {
+                written += cursor.writeTo(channel);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Creates resumable writer for non-blocking channels, which keeps its position between writes
+     */
+    public BinaryWriteCursor writeCursor() {
+        return new BinaryWriteCursor(this);
+    }
+
+    /**
+     * Tells whether data may be written by {@link #transferTo(long, long, WritableByteChannel)}
+     * without copying it through user space
+     */
+    protected boolean isTransferable() {
+        return false;
+    }
+
+    /**
+     * Transfers bytes from given position directly to the channel with single write attempt
+     *
+     * @return number of written bytes, may be 0 when non-blocking channel does not accept more data
+     * @throws UnsupportedOperationException when data is not transferable
+     */
+    protected long transferTo(long position, long count, WritableByteChannel channel) throws IOException {
+        throw new UnsupportedOperationException("Data is not transferable");
+    }
+
+    /**
+     * Transfers all data of the source channel to the file at its current position and advances the position
+     */
+    protected static void transferFrom(ReadableByteChannel source, FileChannel target) throws IOException {
+        long position = target.position();
+        long transferred;
+        while ((transferred = target.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+            position += transferred;
         }
+        target.position(position);
     }
 
     public void to(BinaryBuilder binaryBuilder) {
@@ -292,21 +727,31 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         return (int)length;
     }
 
-    private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
-
     /**
      * Hexadecimal representation containing digits (0-9) with upper-case letters (A-F)
      * @return Hexadecimal encoded string
      */
     public String asHex() throws IOException {
-        byte[] bytes = asByteArray();
-        char[] hex = new char[bytes.length * 2];
-        for ( int j = 0; j < bytes.length; j++ ) {
-            int v = bytes[j] & 0xFF;
-            hex[j * 2] = HEX_ARRAY[v >>> 4];
-            hex[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        if (!hasLength()) {
+            byte[] bytes = asByteArray(false);
+            return BaseEncoding.encodeHex(bytes, 0, bytes.length);
+        }
+        if (length() > Integer.MAX_VALUE / 2) {
+            throw new IOException("Data is too long to be represented as string");
         }
-        return new String(hex);
+
+        char[] hex = new char[(int) length() * 2];
+        int position = 0;
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                position += BaseEncoding.encodeHex(chunk, hex, position);
+            }
+        } finally {
+            cursor.close();
+        }
+        return new String(hex, 0, position);
     }
 
     /**
@@ -338,32 +783,29 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
      * @return Base 64 encoded string
      */
     public String asBase64(BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) throws IOException {
-        String standardBase64 = DatatypeConverter.printBase64Binary(asByteArray(false));
-        if (dialect == BaseEncoding.Dialect.STANDARD && padding == BaseEncoding.Padding.STANDARD) {
-            return standardBase64;
+        if (!hasLength()) {
+            byte[] bytes = asByteArray(false);
+            return BaseEncoding.encodeBase64(bytes, 0, bytes.length, dialect, padding);
+        }
+        long base64Length = BaseEncoding.base64Length(length(), padding);
+        if (base64Length > Integer.MAX_VALUE) {
+            throw new IOException("Data is too long to be represented as string");
         }
 
-        StringBuilder safeBase64 = new StringBuilder(standardBase64.length());
-        for(int i=0; i<standardBase64.length(); i++) {
-            char c = standardBase64.charAt(i);
-
-            if (dialect == BaseEncoding.Dialect.SAFE) {
-                if (c == '+') c = '-';
-                else if (c == '/') c = '_';
-            }
-
-            if (c == '=') {
-                if (padding == BaseEncoding.Padding.STANDARD) {
-                    safeBase64.append('=');
-                }
-                else if (padding == BaseEncoding.Padding.SAFE) {
-                    safeBase64.append('.');
-                }
-            } else {
-                safeBase64.append(c);
+        char[] base64 = new char[(int) base64Length];
+        int position = 0;
+        BaseEncoding.Base64Encoder encoder = new BaseEncoding.Base64Encoder(dialect, padding);
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                position += encoder.encode(chunk, base64, position);
             }
+        } finally {
+            cursor.close();
         }
-        return safeBase64.toString();
+        position += encoder.finish(base64, position);
+        return new String(base64, 0, position);
     }
 
     public Binary subrange(long offset) throws IOException {
@@ -388,55 +830,301 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
     public boolean equals(Object other) {
         if (this == other) return true;
         if (!(other instanceof Binary)) return false;
-        return compareTo((Binary)other) == 0;
+
+        Binary otherBinary = (Binary) other;
+        try {
+            if (hasLength() && otherBinary.hasLength() && length() != otherBinary.length()) {
+                return false;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return compareTo(otherBinary) == 0;
     }
 
+    /**
+     * Computes hash code of data. Result is cached when Binary is not consumable.
+     */
     @Override
     public int hashCode() {
+        int h = hash;
+        if (h != 0) {
+            return h;
+        }
+
+        try {
+            h = computeHashCode();
+        } catch (IOException e) {
+            return super.hashCode();
+        }
+
+        if (!isConsumable()) {
+            hash = h;
+        }
+        return h;
+    }
+
+    private int computeHashCode() throws IOException {
         int result = 1;
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                int i = chunk.position();
+                int limit = chunk.limit();
+                for (; i + 4 <= limit; i += 4) {
+                    result = 923521 * result
+                            + 29791 * (chunk.get(i) & 0xFF)
+                            + 961 * (chunk.get(i + 1) & 0xFF)
+                            + 31 * (chunk.get(i + 2) & 0xFF)
+                            + (chunk.get(i + 3) & 0xFF);
+                }
+                for (; i < limit; i++) {
+                    result = 31 * result + (chunk.get(i) & 0xFF);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
+    /**
+     * Computes hash of data using provided hash function
+     *
+     * @param hashFunction hash function
+     * @return hash bytes
+     * @throws IOException
+     */
+    public Binary hash(HashFunction hashFunction) throws IOException {
+        Hasher hasher = hashFunction.newHasher();
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                hasher.update(chunk);
+            }
+        } finally {
+            cursor.close();
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Computes 64-bit xxHash64 of data (seed 0)
+     */
+    public long hash64() throws IOException {
+        return hash(HashFunction.XXHASH64).asLong();
+    }
 
+    /**
+     * Computes 128-bit MurmurHash3 (x64 variant) of data (seed 0)
+     *
+     * @return 16 bytes of hash
+     */
+    public Binary hash128() throws IOException {
+        return hash(HashFunction.MURMUR3_128);
+    }
+
+    /**
+     * Computes message digest of data, e.g. "SHA-256"
+     *
+     * @param algorithm name of message digest algorithm
+     * @return digest bytes
+     * @throws IOException
+     */
+    public Binary digest(String algorithm) throws IOException {
         try {
-            InputStream in = asStream();
+            return digest(MessageDigest.getInstance(algorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Feeds data to the message digest and completes computation
+     *
+     * @param messageDigest message digest
+     * @return digest bytes
+     * @throws IOException
+     */
+    public Binary digest(MessageDigest messageDigest) throws IOException {
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                messageDigest.update(chunk);
+            }
+        } finally {
+            cursor.close();
+        }
+        return Binary.from(messageDigest.digest());
+    }
+
+    /**
+     * Feeds data to the checksum
+     *
+     * @param checksum checksum
+     * @return value of the checksum
+     * @throws IOException
+     */
+    public long checksum(Checksum checksum) throws IOException {
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer scratch = null;
             try {
-                int readbyte;
-                while ((readbyte = in.read()) != EOF) {
-                    result = 31 * result + readbyte;
+                ByteBuffer chunk;
+                while ((chunk = cursor.next()) != null) {
+                    if (checksum instanceof CRC32C) {
+                        ((CRC32C) checksum).update(chunk);
+                    } else if (chunk.hasArray()) {
+                        checksum.update(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                    } else {
+                        if (scratch == null) {
+                            scratch = BufferAllocator.getDefault().allocate(ChunkCursor.CHUNK_SIZE);
+                        }
+                        while (chunk.hasRemaining()) {
+                            int len = Math.min(chunk.remaining(), scratch.limit());
+                            chunk.get(scratch.array(), scratch.arrayOffset(), len);
+                            checksum.update(scratch.array(), scratch.arrayOffset(), len);
+                        }
+                    }
                 }
             } finally {
-                in.close();
+                BufferAllocator.getDefault().release(scratch);
             }
-        } catch (IOException e) {
-            return super.hashCode();
+        } finally {
+            cursor.close();
         }
+        return checksum.getValue();
+    }
 
-        return result;
+    public long crc32() throws IOException {
+        return checksum(new CRC32());
+    }
+
+    public long crc32c() throws IOException {
+        return checksum(new CRC32C());
+    }
+
+    public long adler32() throws IOException {
+        return checksum(new Adler32());
+    }
+
+    /**
+     * Prepares single pass over data that feeds multiple consumers at once
+     *
+     * @return tee that has to be configured with consumers and run
+     */
+    public BinaryTee tee() {
+        return new BinaryTee(this);
+    }
+
+    /**
+     * Writes Base 64 representation with standard dialect and standard padding, without keeping it whole in memory
+     */
+    public void encodeBase64To(Writer writer) throws IOException {
+        encodeBase64To(writer, BaseEncoding.Dialect.STANDARD, BaseEncoding.Padding.STANDARD);
+    }
+
+    /**
+     * Writes Base 64 representation with customized dialect and padding, without keeping it whole in memory
+     */
+    public void encodeBase64To(Writer writer, BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) throws IOException {
+        BaseEncoding.Base64Encoder encoder = new BaseEncoding.Base64Encoder(dialect, padding);
+        char[] chars = new char[ENCODING_CHUNK_SIZE / 3 * 4 + 4];
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                while (chunk.hasRemaining()) {
+                    ByteBuffer piece = encodingPiece(chunk, ENCODING_CHUNK_SIZE);
+                    writer.write(chars, 0, encoder.encode(piece, chars, 0));
+                    chunk.position(piece.position());
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        writer.write(chars, 0, encoder.finish(chars, 0));
+    }
+
+    /**
+     * Writes Base 64 representation as ASCII characters with standard dialect and standard padding
+     */
+    public void encodeBase64To(OutputStream out) throws IOException {
+        encodeBase64To(out, BaseEncoding.Dialect.STANDARD, BaseEncoding.Padding.STANDARD);
+    }
+
+    /**
+     * Writes Base 64 representation as ASCII characters with customized dialect and padding
+     */
+    public void encodeBase64To(OutputStream out, BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) throws IOException {
+        Writer writer = new OutputStreamWriter(out, Charsets.US_ASCII);
+        encodeBase64To(writer, dialect, padding);
+        writer.flush();
+    }
+
+    /**
+     * Writes hexadecimal representation, without keeping it whole in memory
+     */
+    public void encodeHexTo(Writer writer) throws IOException {
+        char[] chars = new char[ENCODING_CHUNK_SIZE * 2];
+        ChunkCursor cursor = ChunkCursor.open(this);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                while (chunk.hasRemaining()) {
+                    ByteBuffer piece = encodingPiece(chunk, ENCODING_CHUNK_SIZE);
+                    writer.write(chars, 0, BaseEncoding.encodeHex(piece, chars, 0));
+                    chunk.position(piece.position());
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Writes hexadecimal representation as ASCII characters
+     */
+    public void encodeHexTo(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, Charsets.US_ASCII);
+        encodeHexTo(writer);
+        writer.flush();
     }
 
+    private static ByteBuffer encodingPiece(ByteBuffer chunk, int maxSize) {
+        ByteBuffer piece = chunk.duplicate();
+        piece.limit(piece.position() + Math.min(piece.remaining(), maxSize));
+        return piece;
+    }
+
+    /**
+     * Lazily encoded Base 64 representation with standard dialect and standard padding
+     */
+    public Binary base64View() {
+        return base64View(BaseEncoding.Dialect.STANDARD, BaseEncoding.Padding.STANDARD);
+    }
+
+    /**
+     * Lazily encoded Base 64 representation with customized dialect and padding.
+     * Data is encoded in constant memory while resulting Binary is consumed.
+     */
+    public Binary base64View(BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) {
+        return new Base64ViewBinary(this, dialect, padding);
+    }
+
+    /**
+     * Compares data lexicographically as unsigned bytes
+     */
     @Override
     public int compareTo(Binary other) {
         if (other == null) return 1;
         if (this == other) return 0;
 
         try {
-            InputStream thisStream = asStream();
-            try {
-                InputStream otherStream = other.asStream();
-                try {
-                    while(true) {
-                        int thisReadByte = thisStream.read();
-                        int otherReadByte = otherStream.read();
-
-                        if (thisReadByte == otherReadByte) continue;
-                        if (thisReadByte == EOF) return -1;
-                        if (otherReadByte == EOF) return 1;
-                        return thisReadByte - otherReadByte;
-                    }
-                } finally {
-                    otherStream.close();
-                }
-            } finally {
-                thisStream.close();
-            }
+            return BulkComparison.compare(this, other);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -447,14 +1135,30 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
     }
 
     protected static void copyStream(InputStream in, OutputStream out) throws IOException {
-        byte[] buffer = new byte[4096];
-        int readlen;
-        while ((readlen = in.read(buffer)) != EOF) {
-            out.write(buffer, 0, readlen);
-        }
+        transfer(in, out);
         out.flush();
     }
 
+    private static void transfer(InputStream in, OutputStream out) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            ((ByteBufferInputStream) in).transferTo(out);
+            return;
+        }
+
+        BufferAllocator allocator = BufferAllocator.getDefault();
+        ByteBuffer buffer = allocator.allocate(ChunkCursor.CHUNK_SIZE);
+        try {
+            byte[] bytes = buffer.array();
+            int offset = buffer.arrayOffset();
+            int readlen;
+            while ((readlen = in.read(bytes, offset, buffer.limit())) != EOF) {
+                out.write(bytes, offset, readlen);
+            }
+        } finally {
+            allocator.release(buffer);
+        }
+    }
+
     protected static byte[] readBytesFromStream(InputStream in) throws IOException {
         return readBytesFromStream(in, LENGTH_UNSPECIFIED);
     }
@@ -467,9 +1171,7 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
             throw new IOException("Stream is longer than maximal byte array size");
 
         if (length <= 0) {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            copyStream(in, out);
-            return out.toByteArray();
+            return readBytesFromStreamInChunks(in);
         } else {
             int offset = 0;
             byte[] bytes = new byte[(int) length];
@@ -486,6 +1188,44 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         }
     }
 
+    /**
+     * Reads stream of unknown length into pooled chunks, so resulting array is allocated and filled only once
+     */
+    private static byte[] readBytesFromStreamInChunks(InputStream in) throws IOException {
+        BufferAllocator allocator = BufferAllocator.getDefault();
+        List<ByteBuffer> chunks = new ArrayList<>();
+        try {
+            long total = 0;
+            while (true) {
+                ByteBuffer chunk = allocator.allocate(ChunkCursor.CHUNK_SIZE);
+                chunks.add(chunk);
+                int readlen;
+                while (chunk.hasRemaining() && (readlen = in.read(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining())) != EOF) {
+                    chunk.position(chunk.position() + readlen);
+                }
+                total += chunk.position();
+                if (total > Integer.MAX_VALUE) {
+                    throw new IOException("Stream is longer than maximal byte array size");
+                }
+                if (chunk.hasRemaining()) {
+                    break;
+                }
+            }
+
+            byte[] bytes = new byte[(int) total];
+            int offset = 0;
+            for (ByteBuffer chunk : chunks) {
+                System.arraycopy(chunk.array(), chunk.arrayOffset(), bytes, offset, chunk.position());
+                offset += chunk.position();
+            }
+            return bytes;
+        } finally {
+            for (ByteBuffer chunk : chunks) {
+                allocator.release(chunk);
+            }
+        }
+    }
+
     public static Binary from(InputStream in) throws IOException {
         return from(in, LENGTH_UNSPECIFIED);
     }
@@ -508,6 +1248,39 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         return new ByteBufferBinary(byteBuffer);
     }
 
+    public static UncheckedBinary from(int[] values) {
+        return from(values, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Encodes values through typed buffer view
+     */
+    public static UncheckedBinary from(int[] values, ByteOrder order) {
+        byte[] bytes = new byte[values.length * (Integer.SIZE / BITS_PER_BYTE)];
+        ByteBuffer.wrap(bytes).order(order).asIntBuffer().put(values);
+        return from(bytes);
+    }
+
+    public static UncheckedBinary from(long[] values) {
+        return from(values, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static UncheckedBinary from(long[] values, ByteOrder order) {
+        byte[] bytes = new byte[values.length * (Long.SIZE / BITS_PER_BYTE)];
+        ByteBuffer.wrap(bytes).order(order).asLongBuffer().put(values);
+        return from(bytes);
+    }
+
+    public static UncheckedBinary from(double[] values) {
+        return from(values, ByteOrder.BIG_ENDIAN);
+    }
+
+    public static UncheckedBinary from(double[] values, ByteOrder order) {
+        byte[] bytes = new byte[values.length * (Double.SIZE / BITS_PER_BYTE)];
+        ByteBuffer.wrap(bytes).order(order).asDoubleBuffer().put(values);
+        return from(bytes);
+    }
+
     public static Binary from(ReadableByteChannel channel) {
         return from(channel, LENGTH_UNSPECIFIED);
     }
@@ -539,8 +1312,7 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
     }
 
     public static UncheckedBinary fromHex(String hex) {
-        byte[] bytes = DatatypeConverter.parseHexBinary(hex);
-        return from(bytes);
+        return from(BaseEncoding.decodeHex(hex));
     }
 
     /**
@@ -550,22 +1322,77 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
      * @return Binary instance containing provided data
      */
     public static UncheckedBinary fromBase64(String base64) {
-        StringBuilder normalizedBase64 = new StringBuilder(base64.length()+3);
-        for(int i = 0; i<base64.length(); i++) {
-            char c = base64.charAt(i);
-            if (c == '-') c = '+'; //translate from URL-safe
-            if (c == '_') c = '/'; //translate from URL-safe
-            if (c == '.') c = '='; //translate from custom URL-safe padding
-            normalizedBase64.append(c);
+        return from(BaseEncoding.decodeBase64(base64));
+    }
+
+    /**
+     * Decodes Base 64 characters read from the reader, accepting the same input as {@link #fromBase64(String)}.
+     * Decoded data is collected by BinaryBuilder, so big data goes to temporary file.
+     * Reader is not closed.
+     */
+    public static UncheckedBinary fromBase64(Reader reader) throws IOException {
+        BinaryBuilder builder = new BinaryBuilder();
+        try {
+            BaseEncoding.Base64Decoder decoder = new BaseEncoding.Base64Decoder();
+            char[] chars = new char[ENCODING_CHUNK_SIZE];
+            byte[] bytes = new byte[ENCODING_CHUNK_SIZE / 4 * 3 + 3];
+            int readlen;
+            while ((readlen = reader.read(chars)) != EOF) {
+                builder.append(bytes, 0, decoder.decode(chars, 0, readlen, bytes, 0));
+            }
+            builder.append(bytes, 0, decoder.finish(bytes, 0));
+            return builder.buildDetached();
+        } catch (IOException | RuntimeException e) {
+            builder.close();
+            throw e;
         }
+    }
 
-        //recreate padding
-        while (normalizedBase64.length()%4 != 0) {
-            normalizedBase64.append('=');
+    /**
+     * Decodes hexadecimal digits read from the reader.
+     * Decoded data is collected by BinaryBuilder, so big data goes to temporary file.
+     * Reader is not closed.
+     */
+    public static UncheckedBinary fromHex(Reader reader) throws IOException {
+        BinaryBuilder builder = new BinaryBuilder();
+        try {
+            char[] chars = new char[ENCODING_CHUNK_SIZE];
+            byte[] bytes = new byte[ENCODING_CHUNK_SIZE / 2];
+            int carry = 0;
+            int readlen;
+            while ((readlen = reader.read(chars, carry, chars.length - carry)) != EOF) {
+                int total = carry + readlen;
+                int even = total & ~1;
+                builder.append(bytes, 0, BaseEncoding.decodeHex(chars, 0, even, bytes, 0));
+                carry = total - even;
+                if (carry > 0) {
+                    chars[0] = chars[even];
+                }
+            }
+            if (carry > 0) {
+                throw new IllegalArgumentException("Hexadecimal string has to have even number of digits");
+            }
+            return builder.buildDetached();
+        } catch (IOException | RuntimeException e) {
+            builder.close();
+            throw e;
         }
+    }
 
-        byte[] bytes = DatatypeConverter.parseBase64Binary(normalizedBase64.toString());
-        return Binary.from(bytes);
+    /**
+     * Joins multiple Binaries into single one without copying any data
+     *
+     * @param binaries segments of data, in order
+     * @return Binary composed of provided segments
+     */
+    public static Binary concat(Binary... binaries) {
+        return concat(Arrays.asList(binaries));
+    }
+
+    public static Binary concat(List<? extends Binary> binaries) {
+        if (binaries.isEmpty()) return Binary.EMPTY;
+        if (binaries.size() == 1) return binaries.get(0);
+        return new CompositeBinary(binaries);
     }
 
     public static Binary fromFile(String path) {
@@ -592,6 +1419,30 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
         return new FileBinary(path, charset);
     }
 
+    /**
+     * Maps whole file into memory. Data is accessed directly from mapped regions without copying to the heap.
+     * File content should not be modified while mapped Binary is in use.
+     *
+     * @param path file path
+     * @return Binary instance backed by memory-mapped file
+     * @throws IOException
+     */
+    public static UncheckedBinary fromFileMapped(Path path) throws IOException {
+        return new MappedFileBinary(path);
+    }
+
+    public static UncheckedBinary fromFileMapped(Path path, Charset charset) throws IOException {
+        return new MappedFileBinary(path, charset);
+    }
+
+    public static UncheckedBinary fromFileMapped(File file) throws IOException {
+        return new MappedFileBinary(file.toPath());
+    }
+
+    public static UncheckedBinary fromFileMapped(String path) throws IOException {
+        return new MappedFileBinary(Paths.get(path));
+    }
+
     protected static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
     protected static final InputStream EMPTY_INPUT_STREAM = new InputStream() {
@@ -622,6 +1473,11 @@ public abstract class Binary implements Closeable, Comparable<Binary>, Cloneable
             return EMPTY_INPUT_STREAM;
         }
 
+        @Override
+        public void close() {
+            // shared instance, e.g. built by empty BinaryBuilders, must stay usable
+        }
+
         @Override
         public int compareTo(Binary other) {
             try {
@@ -1,12 +1,20 @@
 package com.sproutigy.commons.binary;
 
-import com.sproutigy.commons.binary.impl.ByteBufferBinary;
+import com.sproutigy.commons.binary.impl.ByteArrayBinary;
+import com.sproutigy.commons.binary.impl.OffHeapBinary;
 import com.sproutigy.commons.binary.impl.TempFileBinary;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -26,6 +34,8 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
     public static final int DEFAULT_MAX_MEMORY_SIZE_BYTES = 100*1024;
     public static final long DEFAULT_MAX_SIZE_BYTES_LIMIT = Integer.MAX_VALUE;
 
+    private static final int MAX_VARLONG_BYTES = 10;
+
     public BinaryBuilder() {
         this(DEFAULT_EXPECTED_SIZE, DEFAULT_MAX_MEMORY_SIZE_BYTES, DEFAULT_MAX_SIZE_BYTES_LIMIT);
     }
@@ -39,14 +49,14 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
     }
 
     public BinaryBuilder(long expectedSize, int maxMemorySizeBytes, long maxSizeBytesLimit) {
+        this.maxMemorySizeBytes = maxMemorySizeBytes;
+        this.maxSizeBytesLimit = maxSizeBytesLimit;
+
         if (expectedSize > maxMemorySizeBytes || expectedSize > Integer.MAX_VALUE) {
             prepareTempFile();
-        } else {
-            out = new ByteArrayOutputStream((int)expectedSize);
+        } else if (expectedSize > 0) {
+            addChunk((int)expectedSize);
         }
-
-        this.maxMemorySizeBytes = maxMemorySizeBytes;
-        this.maxSizeBytesLimit = maxSizeBytesLimit;
     }
 
     private Charset charset;
@@ -56,13 +66,43 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
     private String filePath;
     private OutputStream out;
     private Binary data = null;
+    /**
+     * Set when built data has been handed over to the caller, so the builder does not close it
+     */
+    private boolean detached;
+    private BufferAllocator allocator = BufferAllocator.getDefault();
+    private CharsetEncoder encoder;
+    private final byte[] scratch = new byte[MAX_VARLONG_BYTES];
+
+    /**
+     * In-memory data is kept in chunks that are never copied when data grows.
+     * Chunks are taken from the allocator and returned to it when they are not passed to built Binary.
+     */
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private List<BufferAllocator> chunkAllocators = new ArrayList<>();
+    private byte[] chunk;
+    private int chunkPosition;
+    private int chunkLimit;
 
     public long length() {
         return length;
     }
 
     public BinaryBuilder append(Binary data) throws IOException {
-        return append(data.asStream());
+        ByteBuffer[] buffers = data.getUnderlyingByteBuffers();
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                append(buffer);
+            }
+            return this;
+        }
+
+        InputStream in = data.asStream();
+        try {
+            return append(in);
+        } finally {
+            in.close();
+        }
     }
 
     public BinaryBuilder append(String string) {
@@ -73,11 +113,68 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
     }
 
     public BinaryBuilder append(String string, String charsetName) throws IOException {
-        return append(string.getBytes(Charset.forName(charsetName)));
+        return append(string, Charset.forName(charsetName));
     }
 
     public BinaryBuilder append(String string, Charset charset) {
-        return append(string.getBytes(charset));
+        return append((CharSequence) string, charset);
+    }
+
+    /**
+     * Encodes characters directly into builder's memory using encoder reused between calls.
+     * Malformed and unmappable characters are replaced, like in String.getBytes().
+     */
+    public BinaryBuilder append(CharSequence chars, Charset charset) {
+        CharsetEncoder encoder = encoder(charset);
+        CharBuffer source = CharBuffer.wrap(chars);
+        ByteBuffer buffer = null;
+        boolean flushing = false;
+        boolean stalled = false;
+        try {
+            prepareAppend(0);
+            while (true) {
+                ByteBuffer target;
+                boolean inChunk = !stalled && out == null;
+                if (inChunk) {
+                    //may switch to temp file before anything is encoded into a chunk
+                    prepareAppend(Math.min(ChunkCursor.CHUNK_SIZE, ensureChunkSpace()));
+                    inChunk = out == null;
+                }
+                if (inChunk) {
+                    int space = ensureChunkSpace();
+                    target = ByteBuffer.wrap(chunk, chunkPosition, space);
+                } else {
+                    if (buffer == null) {
+                        buffer = allocator.allocate(ChunkCursor.CHUNK_SIZE);
+                    }
+                    buffer.clear().limit(ChunkCursor.CHUNK_SIZE);
+                    target = buffer;
+                }
+
+                int start = target.position();
+                CoderResult result = flushing ? encoder.flush(target) : encoder.encode(source, target, true);
+                int written = target.position() - start;
+                if (inChunk) {
+                    chunkPosition += written;
+                    length += written;
+                } else {
+                    append(buffer.array(), buffer.arrayOffset(), written);
+                }
+
+                if (result.isUnderflow()) {
+                    if (flushing) {
+                        return this;
+                    }
+                    flushing = true;
+                }
+                //encoded character may not fit into the rest of current chunk
+                stalled = inChunk && result.isOverflow() && written == 0;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            allocator.release(buffer);
+        }
     }
 
     public BinaryBuilder appendASCII(String string) {
@@ -95,18 +192,136 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
     public BinaryBuilder append(byte[] bytes, int offset, int length) {
         try {
             prepareAppend(length);
-            out.write(bytes, offset, length);
-            this.length += length;
+            if (out != null) {
+                out.write(bytes, offset, length);
+                this.length += length;
+            } else {
+                //length is kept up to date, so new chunks are sized within memory limit
+                int remaining = length;
+                while (remaining > 0) {
+                    int len = Math.min(remaining, ensureChunkSpace());
+                    System.arraycopy(bytes, offset, chunk, chunkPosition, len);
+                    chunkPosition += len;
+                    this.length += len;
+                    offset += len;
+                    remaining -= len;
+                }
+            }
             return this;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public BinaryBuilder appendShort(short value) {
+        return appendShort(value, ByteOrder.BIG_ENDIAN);
+    }
+
+    public BinaryBuilder appendShort(short value, ByteOrder order) {
+        return appendPrimitive(value, Short.SIZE / Binary.BITS_PER_BYTE, order);
+    }
+
+    public BinaryBuilder appendInt(int value) {
+        return appendInt(value, ByteOrder.BIG_ENDIAN);
+    }
+
+    public BinaryBuilder appendInt(int value, ByteOrder order) {
+        return appendPrimitive(value, Integer.SIZE / Binary.BITS_PER_BYTE, order);
+    }
+
+    public BinaryBuilder appendLong(long value) {
+        return appendLong(value, ByteOrder.BIG_ENDIAN);
+    }
+
+    public BinaryBuilder appendLong(long value, ByteOrder order) {
+        return appendPrimitive(value, Long.SIZE / Binary.BITS_PER_BYTE, order);
+    }
+
+    public BinaryBuilder appendFloat(float value) {
+        return appendFloat(value, ByteOrder.BIG_ENDIAN);
+    }
+
+    public BinaryBuilder appendFloat(float value, ByteOrder order) {
+        return appendInt(Float.floatToIntBits(value), order);
+    }
+
+    public BinaryBuilder appendDouble(double value) {
+        return appendDouble(value, ByteOrder.BIG_ENDIAN);
+    }
+
+    public BinaryBuilder appendDouble(double value, ByteOrder order) {
+        return appendLong(Double.doubleToLongBits(value), order);
+    }
+
+    /**
+     * Appends value as unsigned LEB128 variable-length integer of up to 5 bytes
+     */
+    public BinaryBuilder appendVarInt(int value) {
+        return appendVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Appends value as unsigned LEB128 variable-length long of up to 10 bytes
+     */
+    public BinaryBuilder appendVarLong(long value) {
+        int i = 0;
+        while ((value & ~0x7FL) != 0) {
+            scratch[i++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        scratch[i++] = (byte) value;
+        return append(scratch, 0, i);
+    }
+
+    /**
+     * Appends signed value as zigzag-encoded variable-length integer, so small negative values are short too
+     */
+    public BinaryBuilder appendZigZagInt(int value) {
+        return appendVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Appends signed value as zigzag-encoded variable-length long
+     */
+    public BinaryBuilder appendZigZagLong(long value) {
+        return appendVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Appends data prefixed with its length encoded as variable-length long
+     */
+    public BinaryBuilder appendFramed(Binary data) throws IOException {
+        if (!data.hasLength() && data.isConsumable()) {
+            BinaryBuilder frame = new BinaryBuilder(0, maxMemorySizeBytes).allocator(allocator);
+            try {
+                return appendFramed(frame.append(data).build());
+            } finally {
+                frame.close();
+            }
+        }
+
+        appendVarLong(data.length());
+        return append(data);
+    }
+
+    public BinaryBuilder appendFramed(byte[] bytes) {
+        return appendFramed(bytes, 0, bytes.length);
+    }
+
+    public BinaryBuilder appendFramed(byte[] bytes, int offset, int length) {
+        appendVarLong(length);
+        return append(bytes, offset, length);
+    }
+
     public BinaryBuilder append(byte b) {
         try {
             prepareAppend(1);
-            out.write(b);
+            if (out != null) {
+                out.write(b);
+            } else {
+                ensureChunkSpace();
+                chunk[chunkPosition++] = b;
+            }
             this.length += 1;
             return this;
         } catch (IOException e) {
@@ -114,38 +329,85 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
         }
     }
 
+    /**
+     * Appends remaining bytes of the buffer. Position of the buffer is not changed.
+     */
     public BinaryBuilder append(ByteBuffer byteBuffer) {
         if (byteBuffer.hasArray()) {
-            append(byteBuffer.array(), byteBuffer.arrayOffset(), byteBuffer.limit());
+            append(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), byteBuffer.remaining());
         } else {
-            byte[] bytes = new byte[byteBuffer.limit()];
-            byteBuffer.flip();
-            byteBuffer.get(bytes);
-            append(bytes);
+            ByteBuffer source = byteBuffer.duplicate();
+            ByteBuffer buffer = null;
+            try {
+                while (source.hasRemaining()) {
+                    prepareAppend(Math.min(source.remaining(), ChunkCursor.CHUNK_SIZE));
+                    if (out != null) {
+                        if (buffer == null) {
+                            buffer = allocator.allocate(ChunkCursor.CHUNK_SIZE);
+                        }
+                        int len = Math.min(source.remaining(), buffer.limit());
+                        source.get(buffer.array(), buffer.arrayOffset(), len);
+                        append(buffer.array(), buffer.arrayOffset(), len);
+                    } else {
+                        int len = Math.min(source.remaining(), Math.min(ensureChunkSpace(), ChunkCursor.CHUNK_SIZE));
+                        source.get(chunk, chunkPosition, len);
+                        chunkPosition += len;
+                        length += len;
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                allocator.release(buffer);
+            }
         }
         return this;
     }
 
     public BinaryBuilder append(InputStream inputStream) throws IOException {
-        byte[] buffer = new byte[4*1024];
-        int readlen;
-        while ((readlen = inputStream.read(buffer)) != Binary.EOF) {
-            append(buffer, 0, readlen);
-        }
+        append(inputStream, Long.MAX_VALUE);
         return this;
     }
 
+    /**
+     * Appends data from the stream, but not more than specified number of bytes
+     *
+     * @return true when end of stream has been reached, false when maximal length has been reached
+     */
     public boolean append(InputStream inputStream, long maxLength) throws IOException {
         long remaining = maxLength;
-        int b;
-        while( true ) {
-            if (remaining <= 0)
-                return false;
-            b = inputStream.read();
-            if (b == Binary.EOF)
-                return true;
-            append((byte)b);
-            remaining--;
+        ByteBuffer buffer = null;
+        int readlen;
+        try {
+            while (true) {
+                if (remaining <= 0)
+                    return false;
+
+                int len = (int) Math.min(remaining, ChunkCursor.CHUNK_SIZE);
+                if (out == null) {
+                    //may switch to temp file before anything is read into a chunk
+                    prepareAppend(len);
+                }
+                if (out == null) {
+                    len = Math.min(len, ensureChunkSpace());
+                    readlen = inputStream.read(chunk, chunkPosition, len);
+                    if (readlen == Binary.EOF)
+                        return true;
+                    chunkPosition += readlen;
+                    length += readlen;
+                } else {
+                    if (buffer == null) {
+                        buffer = allocator.allocate(ChunkCursor.CHUNK_SIZE);
+                    }
+                    readlen = inputStream.read(buffer.array(), buffer.arrayOffset(), (int) Math.min(remaining, buffer.limit()));
+                    if (readlen == Binary.EOF)
+                        return true;
+                    append(buffer.array(), buffer.arrayOffset(), readlen);
+                }
+                remaining -= readlen;
+            }
+        } finally {
+            allocator.release(buffer);
         }
     }
 
@@ -164,21 +426,85 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
         append(b, off, len);
     }
 
+    /**
+     * Appends remaining bytes of the buffer and advances its position
+     */
     @Override
     public int write(ByteBuffer src) {
-        byte[] data = new ByteBufferBinary(src).asByteArray(false);
-        write(data);
-        return data.length;
+        int count = src.remaining();
+        append(src);
+        src.position(src.limit());
+        return count;
+    }
+
+    private BinaryBuilder appendPrimitive(long value, int size, ByteOrder order) {
+        if (order == ByteOrder.BIG_ENDIAN) {
+            for (int i = size - 1; i >= 0; i--) {
+                scratch[i] = (byte) value;
+                value >>>= Binary.BITS_PER_BYTE;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                scratch[i] = (byte) value;
+                value >>>= Binary.BITS_PER_BYTE;
+            }
+        }
+        return append(scratch, 0, size);
+    }
+
+    private CharsetEncoder encoder(Charset charset) {
+        if (encoder == null || !encoder.charset().equals(charset)) {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } else {
+            encoder.reset();
+        }
+        return encoder;
+    }
+
+    private int ensureChunkSpace() {
+        if (chunk == null || chunkPosition == chunkLimit) {
+            long allowed = Math.max(1, maxMemorySizeBytes - length);
+            addChunk((int) Math.min(ChunkCursor.CHUNK_SIZE, allowed));
+        }
+        return chunkLimit - chunkPosition;
+    }
+
+    private void addChunk(int size) {
+        ByteBuffer buffer = allocator.allocate(size);
+        chunks.add(buffer);
+        chunkAllocators.add(allocator);
+        chunk = buffer.array();
+        chunkPosition = buffer.arrayOffset();
+        chunkLimit = chunkPosition + size;
+    }
+
+    private int chunkOffset(ByteBuffer buffer) {
+        return buffer.arrayOffset();
+    }
+
+    private int chunkLength(ByteBuffer buffer) {
+        return buffer.array() == chunk ? chunkPosition - buffer.arrayOffset() : buffer.limit();
+    }
+
+    private void releaseChunks() {
+        for (int i = 0; i < chunks.size(); i++) {
+            chunkAllocators.get(i).release(chunks.get(i));
+        }
+        chunks.clear();
+        chunkAllocators.clear();
+        chunk = null;
+        chunkPosition = 0;
+        chunkLimit = 0;
     }
 
     private void prepareAppend(int appendSize) throws IOException {
-        if (data != null)
+        if (data != null || detached)
             throw new IllegalStateException("Data already built");
 
         if (filePath == null && length+appendSize > maxMemorySizeBytes) {
-            byte[] current = ((ByteArrayOutputStream)out).toByteArray();
             prepareTempFile();
-            out.write(current);
         }
         if (length+appendSize > maxSizeBytesLimit) {
             throw new IllegalStateException("Limit exceeded");
@@ -190,8 +516,11 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
             File file = File.createTempFile(UUID.randomUUID().toString(), ".binary.tmp");
             file.deleteOnExit();
             filePath = file.getPath();
-            if (out != null) out.close();
-            out = new FileOutputStream(file);
+            out = new BufferedOutputStream(new FileOutputStream(file), ChunkCursor.CHUNK_SIZE);
+            for (ByteBuffer buffer : chunks) {
+                out.write(buffer.array(), chunkOffset(buffer), chunkLength(buffer));
+            }
+            releaseChunks();
         } catch(IOException e) {
             throw new RuntimeException(e);
         }
@@ -202,14 +531,47 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
         return this;
     }
 
+    /**
+     * Sets allocator of in-memory chunks and temporary buffers.
+     * Already allocated chunks are kept and returned to the allocator they have been taken from.
+     */
+    public BinaryBuilder allocator(BufferAllocator allocator) {
+        if (allocator == null) throw new NullPointerException("allocator == null");
+        this.allocator = allocator;
+        return this;
+    }
+
+    /**
+     * Builds Binary. In-memory data is not copied - single chunk is represented as byte array Binary,
+     * multiple chunks as composite Binary.
+     */
     public UncheckedBinary build() {
+        if (detached)
+            throw new IllegalStateException("Data already built");
+
         if (data == null) {
             if (filePath != null) {
+                try {
+                    out.close();
+                    out = null;
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
                 data = new TempFileBinary(filePath, true, false);
-            } else if (out != null) {
-                byte[] bytes = ((ByteArrayOutputStream) out).toByteArray();
-                data = Binary.from(bytes);
+            } else if (length > 0) {
+                List<Binary> segments = new ArrayList<>(chunks.size());
+                for (ByteBuffer buffer : chunks) {
+                    int len = chunkLength(buffer);
+                    if (len > 0) {
+                        segments.add(new ByteArrayBinary(buffer.array(), chunkOffset(buffer), len));
+                    }
+                }
+                data = Binary.concat(segments);
+                //built data owns the chunks now, so they are not returned to the allocator
+                chunks.clear();
+                chunkAllocators.clear();
             }
+            releaseChunks();
         }
 
         if (charset != null) {
@@ -223,21 +585,68 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
             data = Binary.EMPTY;
         }
 
+        return new UncheckedBinary(data);
+    }
+
+    /**
+     * Builds Binary owned by the caller, which is neither closed with the builder nor by its finalizer
+     */
+    UncheckedBinary buildDetached() {
+        UncheckedBinary built = build();
+        data = null;
+        filePath = null;
+        detached = true;
+        return built;
+    }
+
+    /**
+     * Builds Binary kept in direct memory, outside of the Java heap.
+     * In-memory chunks are copied to slabs taken from builder's allocator and returned to it immediately,
+     * data already written to temporary file is loaded and the file is deleted.
+     * Built Binary is owned by the caller and is not released when the builder is closed.
+     */
+    public OffHeapBinary buildOffHeap() {
+        if (data != null || detached)
+            throw new IllegalStateException("Data already built");
+
+        OffHeapBinary offHeap;
         try {
-            if (out != null) {
+            if (filePath != null) {
                 out.close();
                 out = null;
+                Binary file = new TempFileBinary(filePath, true, false);
+                try {
+                    offHeap = OffHeapBinary.copyOf(file, allocator);
+                } finally {
+                    file.close();
+                    filePath = null;
+                }
+            } else {
+                List<Binary> segments = new ArrayList<>(chunks.size());
+                for (ByteBuffer buffer : chunks) {
+                    int len = chunkLength(buffer);
+                    if (len > 0) {
+                        segments.add(new ByteArrayBinary(buffer.array(), chunkOffset(buffer), len));
+                    }
+                }
+                offHeap = OffHeapBinary.copyOf(Binary.concat(segments), allocator);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            releaseChunks();
         }
 
-        return new UncheckedBinary(data);
+        if (charset != null) {
+            offHeap.setCharset(charset);
+        }
+        detached = true;
+        return offHeap;
     }
 
     @Override
     public boolean isOpen() {
-        return out != null;
+        return data == null && !detached && length >= 0;
     }
 
     @Override
@@ -250,7 +659,11 @@ public class BinaryBuilder extends OutputStream implements WritableByteChannel {
             out.close();
             out = null;
         }
+        if (data == null && filePath != null) {
+            new File(filePath).delete();
+        }
 
+        releaseChunks();
         length = -1;
         data = null;
         filePath = null;
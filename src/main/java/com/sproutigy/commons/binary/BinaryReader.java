@@ -0,0 +1,368 @@
+package com.sproutigy.commons.binary;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Sequential reader of Binary data with a cursor.
+ * Reads fixed-width primitives in any byte order, variable-length integers (LEB128 varints, also zigzag-encoded)
+ * and length-prefixed frames.
+ * Data kept in single memory region is read directly, other data is read in chunks into a pooled buffer -
+ * with positional reads for non-consumable Binaries or from the stream for consumable ones.
+ * Seeking is available for non-consumable Binaries only. Reader should be closed to return its buffer to the pool.
+ *
+ * @author LukeAheadNET
+ */
+public class BinaryReader implements Closeable {
+
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int MAX_VARLONG_BYTES = 10;
+
+    private Binary source;
+    private boolean consumable;
+    private ByteBuffer buffer;
+    private boolean pooled;
+    private long bufferStart;
+    private boolean exhausted;
+    private InputStream in;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+
+    public BinaryReader(Binary source) {
+        if (source == null) throw new NullPointerException("source == null");
+        this.source = source;
+        this.consumable = source.isConsumable();
+
+        ByteBuffer[] buffers = consumable ? null : source.getUnderlyingByteBuffers();
+        if (buffers != null && buffers.length == 1) {
+            buffer = buffers[0];
+            exhausted = true;
+        } else {
+            buffer = BufferAllocator.getDefault().allocate(ChunkCursor.CHUNK_SIZE);
+            buffer.limit(0);
+            pooled = true;
+        }
+        buffer.order(order);
+    }
+
+    public Binary getSource() {
+        return source;
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * Sets byte order of fixed-width primitives, big-endian by default
+     */
+    public BinaryReader order(ByteOrder order) {
+        if (order == null) throw new NullPointerException("order == null");
+        this.order = order;
+        buffer.order(order);
+        return this;
+    }
+
+    /**
+     * @return number of bytes read (or skipped) from the beginning of data
+     */
+    public long position() {
+        return bufferStart + buffer.position();
+    }
+
+    public boolean hasRemaining() throws IOException {
+        return buffer.hasRemaining() || fill(1);
+    }
+
+    /**
+     * Moves cursor to given position
+     *
+     * @throws UnsupportedOperationException when source is consumable
+     */
+    public BinaryReader seek(long position) throws IOException {
+        if (consumable) {
+            throw new UnsupportedOperationException("Seeking is not supported by consumable data");
+        }
+        if (position < 0 || (source.hasLength() && position > source.length())) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        if (position >= bufferStart && position <= bufferStart + buffer.limit()) {
+            buffer.position((int) (position - bufferStart));
+        } else {
+            bufferStart = position;
+            buffer.clear().limit(0);
+            exhausted = false;
+        }
+        return this;
+    }
+
+    public BinaryReader skip(long count) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        if (count <= buffer.remaining()) {
+            buffer.position(buffer.position() + (int) count);
+            return this;
+        }
+
+        if (!consumable) {
+            long target = position() + count;
+            if (source.hasLength() && target > source.length()) {
+                throw new EOFException();
+            }
+            return seek(target);
+        }
+
+        count -= buffer.remaining();
+        bufferStart += buffer.limit();
+        buffer.clear().limit(0);
+        while (count > 0) {
+            long skipped = stream().skip(count);
+            if (skipped <= 0) {
+                if (stream().read() == Binary.EOF) {
+                    exhausted = true;
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+            bufferStart += skipped;
+        }
+        return this;
+    }
+
+    public byte readByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            require(1);
+        }
+        return buffer.get();
+    }
+
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    public short readShort() throws IOException {
+        require(Short.SIZE / Binary.BITS_PER_BYTE);
+        return buffer.getShort();
+    }
+
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    public char readChar() throws IOException {
+        require(Character.SIZE / Binary.BITS_PER_BYTE);
+        return buffer.getChar();
+    }
+
+    public int readInt() throws IOException {
+        require(Integer.SIZE / Binary.BITS_PER_BYTE);
+        return buffer.getInt();
+    }
+
+    public long readUnsignedInt() throws IOException {
+        return readInt() & 0xFFFFFFFFL;
+    }
+
+    public long readLong() throws IOException {
+        require(Long.SIZE / Binary.BITS_PER_BYTE);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads unsigned LEB128 variable-length integer of up to 5 bytes
+     */
+    public int readVarInt() throws IOException {
+        int result = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            byte b = readByte();
+            result |= (b & 0x7F) << (i * 7);
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Reads unsigned LEB128 variable-length long of up to 10 bytes
+     */
+    public long readVarLong() throws IOException {
+        long result = 0;
+        for (int i = 0; i < MAX_VARLONG_BYTES; i++) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << (i * 7);
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable-length long");
+    }
+
+    /**
+     * Reads signed zigzag-encoded variable-length integer
+     */
+    public int readZigZagInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads signed zigzag-encoded variable-length long
+     */
+    public long readZigZagLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public void readFully(byte[] target) throws IOException {
+        readFully(target, 0, target.length);
+    }
+
+    public void readFully(byte[] target, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int len = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, len);
+            offset += len;
+            length -= len;
+        }
+    }
+
+    /**
+     * Reads next bytes as Binary. For non-consumable sources returned Binary is a view, no data is copied.
+     */
+    public Binary readBinary(long length) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+        if (length == 0) {
+            return Binary.EMPTY;
+        }
+
+        if (!consumable) {
+            long position = position();
+            if (source.hasLength() && position + length > source.length()) {
+                throw new EOFException();
+            }
+            Binary view = source.subrange(position, length);
+            seek(position + length);
+            return view;
+        }
+
+        if (length <= buffer.remaining()) {
+            byte[] bytes = new byte[(int) length];
+            buffer.get(bytes);
+            return Binary.from(bytes);
+        }
+
+        BinaryBuilder builder = new BinaryBuilder(length);
+        try {
+            long remaining = length - buffer.remaining();
+            builder.append(buffer);
+            bufferStart += buffer.limit();
+            buffer.clear().limit(0);
+            if (builder.append(stream(), remaining)) {
+                exhausted = true;
+                throw new EOFException();
+            }
+            bufferStart += remaining;
+            return builder.buildDetached();
+        } catch (IOException | RuntimeException e) {
+            builder.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads frame prefixed with its length encoded as variable-length long
+     */
+    public Binary readFramed() throws IOException {
+        return readBinary(readVarLong());
+    }
+
+    /**
+     * Returns pooled buffer and closes stream of consumable source. Source itself is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (pooled && buffer != null) {
+            ByteBuffer released = buffer;
+            buffer = ByteBuffer.allocate(0);
+            pooled = false;
+            exhausted = true;
+            BufferAllocator.getDefault().release(released);
+        }
+        if (in != null) {
+            InputStream stream = in;
+            in = null;
+            stream.close();
+        }
+    }
+
+    private void require(int count) throws IOException {
+        if (buffer.remaining() < count && !fill(count)) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Reads more data into the buffer, keeping bytes not consumed yet
+     *
+     * @return true when at least required number of bytes is available
+     */
+    private boolean fill(int required) throws IOException {
+        if (exhausted) {
+            return buffer.remaining() >= required;
+        }
+
+        bufferStart += buffer.position();
+        buffer.compact();
+        try {
+            do {
+                if (readSource() == Binary.EOF) {
+                    exhausted = true;
+                    break;
+                }
+            } while (buffer.position() < required);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.remaining() >= required;
+    }
+
+    private int readSource() throws IOException {
+        if (!consumable) {
+            return source.read(bufferStart + buffer.position(), buffer);
+        }
+
+        int readlen = stream().read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (readlen > 0) {
+            buffer.position(buffer.position() + readlen);
+        }
+        return readlen;
+    }
+
+    private InputStream stream() throws IOException {
+        if (in == null) {
+            in = source.asStream();
+        }
+        return in;
+    }
+}
@@ -0,0 +1,154 @@
+package com.sproutigy.commons.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Checksum;
+
+/**
+ * Reads Binary data in single pass and feeds multiple consumers at once with the same chunks.
+ * Useful for consumable Binaries (streams, nonseekable channels), that can be read only once,
+ * e.g. to store data, compute its digest and count its length at the same time.
+ * After completion length of the source becomes known.
+ *
+ * @author LukeAheadNET
+ */
+public class BinaryTee {
+
+    private Binary source;
+    private List<Sink> sinks = new ArrayList<>();
+    private ByteBuffer scratch;
+
+
+    public BinaryTee(Binary source) {
+        if (source == null) throw new NullPointerException("source == null");
+        this.source = source;
+    }
+
+    public BinaryTee to(final OutputStream out) {
+        sinks.add(new Sink() {
+            @Override
+            public void write(ByteBuffer chunk) throws IOException {
+                if (chunk.hasArray()) {
+                    out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                } else {
+                    ByteBuffer buffer = scratch();
+                    while (chunk.hasRemaining()) {
+                        int len = Math.min(chunk.remaining(), buffer.limit());
+                        chunk.get(buffer.array(), buffer.arrayOffset(), len);
+                        out.write(buffer.array(), buffer.arrayOffset(), len);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    public BinaryTee to(final WritableByteChannel channel) {
+        sinks.add(new Sink() {
+            @Override
+            public void write(ByteBuffer chunk) throws IOException {
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        });
+        return this;
+    }
+
+    public BinaryTee to(BinaryBuilder binaryBuilder) {
+        return to((OutputStream) binaryBuilder);
+    }
+
+    public BinaryTee digest(final MessageDigest messageDigest) {
+        sinks.add(new Sink() {
+            @Override
+            public void write(ByteBuffer chunk) {
+                messageDigest.update(chunk);
+            }
+        });
+        return this;
+    }
+
+    public BinaryTee checksum(final Checksum checksum) {
+        sinks.add(new Sink() {
+            @Override
+            public void write(ByteBuffer chunk) {
+                if (chunk.hasArray()) {
+                    checksum.update(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                } else {
+                    ByteBuffer buffer = scratch();
+                    while (chunk.hasRemaining()) {
+                        int len = Math.min(chunk.remaining(), buffer.limit());
+                        chunk.get(buffer.array(), buffer.arrayOffset(), len);
+                        checksum.update(buffer.array(), buffer.arrayOffset(), len);
+                    }
+                }
+            }
+        });
+        return this;
+    }
+
+    public BinaryTee hash(final Hasher hasher) {
+        sinks.add(new Sink() {
+            @Override
+            public void write(ByteBuffer chunk) {
+                hasher.update(chunk);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Reads whole source once and feeds all consumers
+     *
+     * @return length of read data
+     * @throws IOException
+     */
+    public long run() throws IOException {
+        long count = 0;
+        ChunkCursor cursor = ChunkCursor.open(source);
+        try {
+            ByteBuffer chunk;
+            while ((chunk = cursor.next()) != null) {
+                int position = chunk.position();
+                for (Sink sink : sinks) {
+                    chunk.position(position);
+                    sink.write(chunk);
+                }
+                count += chunk.limit() - position;
+            }
+        } finally {
+            cursor.close();
+            if (scratch != null) {
+                BufferAllocator.getDefault().release(scratch);
+                scratch = null;
+            }
+        }
+
+        Binary target = source;
+        while (target instanceof UncheckedBinary && ((UncheckedBinary) target).decorated != null) {
+            target = ((UncheckedBinary) target).decorated;
+        }
+        if (target.length == Binary.LENGTH_UNSPECIFIED) {
+            target.length = count;
+        }
+        return count;
+    }
+
+    private ByteBuffer scratch() {
+        if (scratch == null) {
+            scratch = BufferAllocator.getDefault().allocate(ChunkCursor.CHUNK_SIZE);
+        }
+        return scratch;
+    }
+
+
+    private interface Sink {
+        void write(ByteBuffer chunk) throws IOException;
+    }
+}
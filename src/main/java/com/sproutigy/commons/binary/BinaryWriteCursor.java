@@ -0,0 +1,309 @@
+package com.sproutigy.commons.binary;
+
+import com.sproutigy.commons.binary.impl.CompositeBinary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumable writer of Binary data to channels, also non-blocking ones driven by a selector.
+ * Every {@link #writeTo(WritableByteChannel)} call writes as much as the channel accepts and the cursor
+ * keeps its position until the next call. Data kept in memory is written directly from its buffers
+ * (with gathering writes when possible), files are transferred with FileChannel.transferTo()
+ * and other data is staged in a pooled buffer. Segments of composite Binaries are written by their own strategies.
+ * Cursor should be closed when not written till the end, to return its buffer to the pool.
+ *
+ * @author LukeAheadNET
+ */
+public class BinaryWriteCursor implements Closeable {
+
+    private Binary source;
+    private List<Part> parts = new ArrayList<>();
+    private int index;
+    private long position;
+
+
+    public BinaryWriteCursor(Binary source) {
+        if (source == null) throw new NullPointerException("source == null");
+        this.source = source;
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        add(source, buffers);
+        addBuffers(buffers);
+    }
+
+    public Binary getSource() {
+        return source;
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Tells whether there is more data to write. End of data of unknown length is detected when reached by a write.
+     */
+    public boolean hasRemaining() {
+        skipCompletedParts();
+        return index < parts.size();
+    }
+
+    /**
+     * Writes as much data as the channel accepts without blocking
+     *
+     * @return number of written bytes, 0 when channel does not accept more data or all data has been written
+     */
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        long written = 0;
+        while (hasRemaining()) {
+            Part part = parts.get(index);
+            long count = part.write(channel);
+            written += count;
+            position += count;
+            if (!part.isCompleted()) {
+                break;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Returns pooled buffers and closes opened streams. Source Binary is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (; index < parts.size(); index++) {
+            try {
+                parts.get(index).close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void skipCompletedParts() {
+        while (index < parts.size() && parts.get(index).isCompleted()) {
+            index++;
+        }
+    }
+
+    private void add(Binary binary, List<ByteBuffer> buffers) {
+        while (binary instanceof UncheckedBinary && ((UncheckedBinary) binary).decorated != null) {
+            binary = ((UncheckedBinary) binary).decorated;
+        }
+
+        if (binary instanceof CompositeBinary) {
+            for (Binary segment : ((CompositeBinary) binary).getSegments()) {
+                add(segment, buffers);
+            }
+            return;
+        }
+
+        ByteBuffer[] underlying = binary.getUnderlyingByteBuffers();
+        if (underlying != null) {
+            for (ByteBuffer buffer : underlying) {
+                buffers.add(buffer);
+            }
+            return;
+        }
+
+        addBuffers(buffers);
+        if (binary.isTransferable()) {
+            parts.add(new TransferPart(binary));
+        } else {
+            parts.add(new StagedPart(binary));
+        }
+    }
+
+    private void addBuffers(List<ByteBuffer> buffers) {
+        if (!buffers.isEmpty()) {
+            parts.add(new BuffersPart(buffers.toArray(new ByteBuffer[buffers.size()])));
+            buffers.clear();
+        }
+    }
+
+
+    private interface Part extends Closeable {
+        long write(WritableByteChannel channel) throws IOException;
+
+        boolean isCompleted();
+    }
+
+    /**
+     * Consecutive in-memory buffers, written directly
+     */
+    private static final class BuffersPart implements Part {
+        private final ByteBuffer[] buffers;
+        private int index;
+
+        BuffersPart(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        @Override
+        public long write(WritableByteChannel channel) throws IOException {
+            long written = 0;
+            skipWritten();
+            while (index < buffers.length) {
+                long count;
+                if (channel instanceof GatheringByteChannel) {
+                    count = ((GatheringByteChannel) channel).write(buffers, index, buffers.length - index);
+                } else {
+                    count = channel.write(buffers[index]);
+                }
+                written += count;
+                skipWritten();
+                if (count == 0 && index < buffers.length) {
+                    break;
+                }
+            }
+            return written;
+        }
+
+        private void skipWritten() {
+            while (index < buffers.length && !buffers[index].hasRemaining()) {
+                index++;
+            }
+        }
+
+        @Override
+        public boolean isCompleted() {
+            skipWritten();
+            return index == buffers.length;
+        }
+
+        @Override
+        public void close() {
+            index = buffers.length;
+        }
+    }
+
+    /**
+     * Data transferred by the source itself, e.g. files with FileChannel.transferTo()
+     */
+    private static final class TransferPart implements Part {
+        private final Binary binary;
+        private long position;
+        private long length;
+
+        TransferPart(Binary binary) {
+            this.binary = binary;
+            this.length = -1;
+        }
+
+        @Override
+        public long write(WritableByteChannel channel) throws IOException {
+            if (length < 0) {
+                length = binary.length();
+            }
+            long written = 0;
+            while (position < length) {
+                long count = binary.transferTo(position, length - position, channel);
+                if (count == 0) {
+                    break;
+                }
+                position += count;
+                written += count;
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return length >= 0 && position >= length;
+        }
+
+        @Override
+        public void close() {
+            length = 0;
+            position = 0;
+        }
+    }
+
+    /**
+     * Data read in chunks into a pooled buffer, which keeps bytes not accepted by the channel yet.
+     * Data is read sequentially from a single stream, as positional reads of views and streamable
+     * sources would have to start over for every chunk.
+     */
+    private static final class StagedPart implements Part {
+        private final Binary binary;
+        private ByteBuffer buffer;
+        private InputStream in;
+        private boolean exhausted;
+
+        StagedPart(Binary binary) {
+            this.binary = binary;
+        }
+
+        @Override
+        public long write(WritableByteChannel channel) throws IOException {
+            if (buffer == null) {
+                buffer = BufferAllocator.getDefault().allocate(ChunkCursor.CHUNK_SIZE);
+                buffer.limit(0);
+            }
+
+            long written = 0;
+            while (true) {
+                if (!buffer.hasRemaining() && !fill()) {
+                    close();
+                    return written;
+                }
+                int count = channel.write(buffer);
+                written += count;
+                if (buffer.hasRemaining()) {
+                    return written;
+                }
+            }
+        }
+
+        private boolean fill() throws IOException {
+            buffer.clear().limit(ChunkCursor.CHUNK_SIZE);
+            if (in == null) {
+                in = binary.asStream();
+            }
+            int readlen = in.read(buffer.array(), buffer.arrayOffset(), buffer.limit());
+            if (readlen > 0) {
+                buffer.position(readlen);
+            }
+            buffer.flip();
+            if (readlen == Binary.EOF) {
+                exhausted = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return exhausted && (buffer == null || !buffer.hasRemaining());
+        }
+
+        @Override
+        public void close() throws IOException {
+            exhausted = true;
+            if (buffer != null) {
+                ByteBuffer released = buffer;
+                buffer = null;
+                BufferAllocator.getDefault().release(released);
+            }
+            if (in != null) {
+                InputStream stream = in;
+                in = null;
+                stream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sproutigy.commons.binary;
+
+import com.sproutigy.commons.binary.impl.PooledBufferAllocator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides byte buffers for internal copy loops and BinaryBuilder chunks.
+ * Buffers may be reused after release, so released buffer must not be accessed anymore
+ * and every buffer may be released only once.
+ *
+ * @author LukeAheadNET
+ */
+public abstract class BufferAllocator {
+
+    /**
+     * Allocates new buffers every time and relies on garbage collector
+     */
+    public static final BufferAllocator UNPOOLED = new BufferAllocator() {
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocate(capacity);
+        }
+
+        @Override
+        public ByteBuffer allocateDirect(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+
+        @Override
+        public void release(ByteBuffer buffer) {
+        }
+    };
+
+    private static volatile BufferAllocator defaultAllocator = new PooledBufferAllocator();
+
+    public static BufferAllocator getDefault() {
+        return defaultAllocator;
+    }
+
+    public static void setDefault(BufferAllocator allocator) {
+        if (allocator == null) throw new NullPointerException("allocator == null");
+        defaultAllocator = allocator;
+    }
+
+    /**
+     * Provides heap buffer backed by an array.
+     * Buffer is cleared and its limit is set to requested capacity, while its real capacity may be bigger.
+     */
+    public abstract ByteBuffer allocate(int capacity);
+
+    /**
+     * Provides direct buffer.
+     * Buffer is cleared and its limit is set to requested capacity, while its real capacity may be bigger.
+     */
+    public abstract ByteBuffer allocateDirect(int capacity);
+
+    /**
+     * Returns buffer for reuse
+     */
+    public abstract void release(ByteBuffer buffer);
+}
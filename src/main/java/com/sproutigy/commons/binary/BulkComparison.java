@@ -0,0 +1,81 @@
+package com.sproutigy.commons.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Lexicographical comparison of unsigned bytes that compares 8 bytes at a time.
+ *
+ * @author LukeAheadNET
+ */
+final class BulkComparison {
+
+    private BulkComparison() { }
+
+    static int compare(Binary first, Binary second) throws IOException {
+        ChunkCursor firstCursor = ChunkCursor.open(first);
+        try {
+            ChunkCursor secondCursor = ChunkCursor.open(second);
+            try {
+                return compare(firstCursor, secondCursor);
+            } finally {
+                secondCursor.close();
+            }
+        } finally {
+            firstCursor.close();
+        }
+    }
+
+    private static int compare(ChunkCursor firstCursor, ChunkCursor secondCursor) throws IOException {
+        ByteBuffer first = null;
+        ByteBuffer second = null;
+        while (true) {
+            if (first == null || !first.hasRemaining()) {
+                first = firstCursor.next();
+            }
+            if (second == null || !second.hasRemaining()) {
+                second = secondCursor.next();
+            }
+
+            if (first == null) {
+                return second == null ? 0 : -1;
+            }
+            if (second == null) {
+                return 1;
+            }
+
+            int result = compare(first, second, Math.min(first.remaining(), second.remaining()));
+            if (result != 0) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Compares given number of bytes from current positions and advances both buffers when they are equal
+     */
+    static int compare(ByteBuffer first, ByteBuffer second, int count) {
+        int firstPosition = first.position();
+        int secondPosition = second.position();
+        int i = 0;
+        for (; i + Long.SIZE / Binary.BITS_PER_BYTE <= count; i += Long.SIZE / Binary.BITS_PER_BYTE) {
+            long a = first.getLong(firstPosition + i);
+            long b = second.getLong(secondPosition + i);
+            if (a != b) {
+                int difference = Long.numberOfLeadingZeros(a ^ b) / Binary.BITS_PER_BYTE;
+                return (first.get(firstPosition + i + difference) & 0xFF) - (second.get(secondPosition + i + difference) & 0xFF);
+            }
+        }
+        for (; i < count; i++) {
+            int a = first.get(firstPosition + i) & 0xFF;
+            int b = second.get(secondPosition + i) & 0xFF;
+            if (a != b) {
+                return a - b;
+            }
+        }
+
+        first.position(firstPosition + count);
+        second.position(secondPosition + count);
+        return 0;
+    }
+}
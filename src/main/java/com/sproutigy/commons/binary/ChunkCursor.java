@@ -0,0 +1,93 @@
+package com.sproutigy.commons.binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Iterates over Binary data in natural chunks.
+ * Data kept in memory is exposed directly through its underlying buffers,
+ * other sources are read through their streams into a reused buffer, not further than their declared length.
+ *
+ * @author LukeAheadNET
+ */
+final class ChunkCursor implements Closeable {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    private ByteBuffer[] buffers;
+    private int index;
+    private InputStream stream;
+    private ByteBuffer scratch;
+    private long remaining;
+
+
+    private ChunkCursor(ByteBuffer[] buffers) {
+        this.buffers = buffers;
+    }
+
+    private ChunkCursor(InputStream stream, long length) {
+        this.stream = stream;
+        this.remaining = length < 0 ? Long.MAX_VALUE : length;
+        this.scratch = BufferAllocator.getDefault().allocate(CHUNK_SIZE);
+    }
+
+    static ChunkCursor open(Binary binary) throws IOException {
+        ByteBuffer[] buffers = binary.getUnderlyingByteBuffers();
+        if (buffers != null) {
+            return new ChunkCursor(buffers);
+        }
+        return new ChunkCursor(binary.asStream(), binary.length(false));
+    }
+
+    /**
+     * Returns next non-empty chunk in big-endian order.
+     * Chunk is valid only until next call, as stream-based chunks reuse the same buffer.
+     *
+     * @return next chunk or null when there is no more data
+     */
+    ByteBuffer next() throws IOException {
+        if (buffers != null) {
+            while (index < buffers.length) {
+                ByteBuffer buffer = buffers[index++];
+                if (buffer.hasRemaining()) {
+                    return buffer.order(ByteOrder.BIG_ENDIAN);
+                }
+            }
+            return null;
+        }
+
+        if (stream == null) {
+            return null;
+        }
+        int readlen = Binary.EOF;
+        if (remaining > 0) {
+            do {
+                readlen = stream.read(scratch.array(), scratch.arrayOffset(), (int) Math.min(CHUNK_SIZE, remaining));
+            } while (readlen == 0);
+        }
+        if (readlen == Binary.EOF) {
+            close();
+            return null;
+        }
+        remaining -= readlen;
+        scratch.clear();
+        scratch.limit(readlen);
+        return scratch;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scratch != null) {
+            BufferAllocator.getDefault().release(scratch);
+            scratch = null;
+        }
+        if (stream != null) {
+            InputStream in = stream;
+            stream = null;
+            in.close();
+        }
+    }
+}
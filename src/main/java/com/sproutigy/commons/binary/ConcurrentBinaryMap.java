@@ -0,0 +1,463 @@
+package com.sproutigy.commons.binary;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Thread-safe implementation of BinaryMap.
+ * Entries are kept in a ConcurrentHashMap, so reads do not take any locks and writes of different keys rarely contend.
+ * Hash codes of keys are cached by Binaries and computed before any lock is taken.
+ * Values are replaced with compare-and-set, {@link #computeIfAbsentStriped(Binary, ValueFunction)} computes
+ * a value at most once per key at a time, holding one of striped locks.
+ * Methods taking functions are named apart from ConcurrentMap ones, so lambdas are not ambiguous on Java 8 and later.
+ * Optionally entries are iterated in insertion order (re-inserting a key does not change its position).
+ * Iterators are weakly consistent and never throw ConcurrentModificationException.
+ * Consumable keys are copied to memory first.
+ *
+ * @author LukeAheadNET
+ */
+public class ConcurrentBinaryMap extends AbstractMap<Binary, Binary> implements BinaryMap, ConcurrentMap<Binary, Binary> {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+    private static final AtomicReferenceFieldUpdater<Node, Binary> VALUE =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Binary.class, "value");
+
+    /**
+     * Computes value for a key
+     */
+    public interface ValueFunction {
+        /**
+         * @return value or null when there should be no mapping
+         */
+        Binary apply(Binary key);
+    }
+
+    /**
+     * Combines present value with a given one
+     */
+    public interface MergeFunction {
+        /**
+         * @return merged value or null when mapping should be removed
+         */
+        Binary apply(Binary oldValue, Binary value);
+    }
+
+    private final ConcurrentHashMap<Binary, Node> nodes;
+    private final ConcurrentSkipListMap<Long, Node> order;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object[] stripes;
+    private Set<Entry<Binary, Binary>> entrySet;
+
+
+    public ConcurrentBinaryMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public ConcurrentBinaryMap(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    public ConcurrentBinaryMap(int initialCapacity, boolean insertionOrder) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL, insertionOrder);
+    }
+
+    /**
+     * @param initialCapacity  expected number of entries
+     * @param concurrencyLevel expected number of concurrently writing threads
+     * @param insertionOrder   whether entries should be iterated in insertion order
+     */
+    public ConcurrentBinaryMap(int initialCapacity, int concurrencyLevel, boolean insertionOrder) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+
+        nodes = new ConcurrentHashMap<>(initialCapacity, 0.75f, concurrencyLevel);
+        order = insertionOrder ? new ConcurrentSkipListMap<Long, Node>() : null;
+        int stripeCount = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1)) << 1;
+        stripes = new Object[stripeCount];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    public boolean isInsertionOrder() {
+        return order != null;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Binary get(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        Node node = nodes.get(stable((Binary) key));
+        return node != null ? node.value : null;
+    }
+
+    @Override
+    public Binary put(Binary key, Binary value) {
+        if (value == null) throw new NullPointerException("value == null");
+        Binary k = stableKey(key);
+        Node created = null;
+        while (true) {
+            Node node = nodes.get(k);
+            if (node == null) {
+                if (created == null) {
+                    created = new Node(k, value);
+                }
+                if (link(created)) {
+                    return null;
+                }
+                continue;
+            }
+            Binary old = node.value;
+            if (old == null) {
+                unlink(node);
+            } else if (node.compareAndSet(old, value)) {
+                return old;
+            }
+        }
+    }
+
+    @Override
+    public Binary putIfAbsent(Binary key, Binary value) {
+        if (value == null) throw new NullPointerException("value == null");
+        Binary k = stableKey(key);
+        Node created = null;
+        while (true) {
+            Node node = nodes.get(k);
+            if (node == null) {
+                if (created == null) {
+                    created = new Node(k, value);
+                }
+                if (link(created)) {
+                    return null;
+                }
+                continue;
+            }
+            Binary old = node.value;
+            if (old != null) {
+                return old;
+            }
+            unlink(node);
+        }
+    }
+
+    @Override
+    public Binary remove(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        Node node = nodes.get(stable((Binary) key));
+        while (node != null) {
+            Binary old = node.value;
+            if (old == null) {
+                unlink(node);
+                return null;
+            }
+            if (node.compareAndSet(old, null)) {
+                unlink(node);
+                return old;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof Binary) || value == null) {
+            return false;
+        }
+        Node node = nodes.get(stable((Binary) key));
+        while (node != null) {
+            Binary old = node.value;
+            if (old == null || !old.equals(value)) {
+                return false;
+            }
+            if (node.compareAndSet(old, null)) {
+                unlink(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replace(Binary key, Binary oldValue, Binary newValue) {
+        if (oldValue == null) throw new NullPointerException("oldValue == null");
+        if (newValue == null) throw new NullPointerException("newValue == null");
+        Node node = nodes.get(stableKey(key));
+        while (node != null) {
+            Binary old = node.value;
+            if (old == null || !old.equals(oldValue)) {
+                return false;
+            }
+            if (node.compareAndSet(old, newValue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Binary replace(Binary key, Binary value) {
+        if (value == null) throw new NullPointerException("value == null");
+        Node node = nodes.get(stableKey(key));
+        while (node != null) {
+            Binary old = node.value;
+            if (old == null) {
+                return null;
+            }
+            if (node.compareAndSet(old, value)) {
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns present value or computes and stores a new one.
+     * Function is called at most once for a key at a time, while holding a lock shared by a stripe of keys,
+     * so it should be short and must not modify this map. Reads are not blocked.
+     *
+     * @return present or computed value, null when function returned null
+     */
+    public Binary computeIfAbsentStriped(Binary key, ValueFunction function) {
+        if (function == null) throw new NullPointerException("function == null");
+        Binary k = stableKey(key);
+        Binary value = get(k);
+        if (value != null) {
+            return value;
+        }
+
+        synchronized (stripes[spread(k.hashCode()) & (stripes.length - 1)]) {
+            value = get(k);
+            if (value != null) {
+                return value;
+            }
+            Binary computed = function.apply(k);
+            if (computed == null) {
+                return null;
+            }
+            Binary present = putIfAbsent(k, computed);
+            return present != null ? present : computed;
+        }
+    }
+
+    /**
+     * Stores the value when key is absent, otherwise replaces present value with result of the function.
+     * Value is replaced with compare-and-set, so the function may be called again when the value has been
+     * concurrently changed, thus it should be free of side effects.
+     *
+     * @return new value, null when mapping has been removed
+     */
+    public Binary mergeValue(Binary key, Binary value, MergeFunction function) {
+        if (value == null) throw new NullPointerException("value == null");
+        if (function == null) throw new NullPointerException("function == null");
+        Binary k = stableKey(key);
+        while (true) {
+            Node node = nodes.get(k);
+            if (node == null) {
+                if (link(new Node(k, value))) {
+                    return value;
+                }
+                continue;
+            }
+            Binary old = node.value;
+            if (old == null) {
+                unlink(node);
+                continue;
+            }
+            Binary merged = function.apply(old, value);
+            if (node.compareAndSet(old, merged)) {
+                if (merged == null) {
+                    unlink(node);
+                }
+                return merged;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Node node : nodes.values()) {
+            Binary old = node.value;
+            if (old != null && node.compareAndSet(old, null)) {
+                unlink(node);
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<Binary, Binary>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private boolean link(Node node) {
+        if (nodes.putIfAbsent(node.key, node) != null) {
+            return false;
+        }
+        if (order != null) {
+            order.put(node.sequence, node);
+            if (node.value == null) {
+                order.remove(node.sequence, node);
+            }
+        }
+        return true;
+    }
+
+    private void unlink(Node node) {
+        nodes.remove(node.key, node);
+        if (order != null) {
+            order.remove(node.sequence, node);
+        }
+    }
+
+    private static Binary stableKey(Binary key) {
+        if (key == null) throw new NullPointerException("key == null");
+        return stable(key);
+    }
+
+    private static Binary stable(Binary binary) {
+        if (binary.isConsumable()) {
+            try {
+                return Binary.from(binary.asByteArray(false));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return binary;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * Mapping of a key, value set to null when removed
+     */
+    private final class Node {
+        final Binary key;
+        final long sequence;
+        volatile Binary value;
+
+        Node(Binary key, Binary value) {
+            this.key = key;
+            this.value = value;
+            this.sequence = ConcurrentBinaryMap.this.sequence.incrementAndGet();
+        }
+
+        boolean compareAndSet(Binary expected, Binary update) {
+            return VALUE.compareAndSet(this, expected, update);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Binary, Binary>> {
+        @Override
+        public int size() {
+            return ConcurrentBinaryMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentBinaryMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<Binary, Binary>> iterator() {
+            return new EntryIterator(order != null ? order.values().iterator() : nodes.values().iterator());
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Binary, Binary>> {
+        private final Iterator<Node> iterator;
+        private Entry<Binary, Binary> next;
+        private Binary lastKey;
+
+        EntryIterator(Iterator<Node> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                Node node = iterator.next();
+                Binary value = node.value;
+                if (value != null) {
+                    next = new MapEntry(node.key, value);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<Binary, Binary> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<Binary, Binary> entry = next;
+            next = null;
+            lastKey = entry.getKey();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentBinaryMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * Snapshot of a mapping, setValue() writes through to the map
+     */
+    private final class MapEntry extends SimpleEntry<Binary, Binary> {
+        private static final long serialVersionUID = 1L;
+
+        MapEntry(Binary key, Binary value) {
+            super(key, value);
+        }
+
+        @Override
+        public Binary setValue(Binary value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+}
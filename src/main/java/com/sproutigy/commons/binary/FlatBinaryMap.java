@@ -0,0 +1,542 @@
+package com.sproutigy.commons.binary;
+
+import com.sproutigy.commons.binary.impl.PooledBufferAllocator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * In-memory BinaryMap that copies keys and values into large slabs, off-heap (direct) or on-heap,
+ * and indexes them with an open-addressing table of primitive (hash, reference) pairs.
+ * There are no objects per entry, so millions of entries cost a few slabs and two arrays for the garbage collector.
+ * Keys are compared with stored ones in bulk, 8 bytes at a time, when key data is available as buffers.
+ * Returned keys and values are read-only views of slab memory, valid until {@link #compact()},
+ * {@link #clear()} or {@link #close()} returns slabs to the allocator.
+ * Overwritten and removed entries are not reused until compaction.
+ * Not thread-safe, iteration order is not specified.
+ *
+ * @author LukeAheadNET
+ */
+public class FlatBinaryMap extends AbstractMap<Binary, Binary> implements BinaryMap, Closeable {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 16;
+    public static final int DEFAULT_SLAB_SIZE = PooledBufferAllocator.DEFAULT_MAX_SIZE;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+
+    private final BufferAllocator allocator;
+    private final boolean direct;
+    private final int slabSize;
+    private final int initialCapacity;
+
+    private ByteBuffer[] slabs = new ByteBuffer[0];
+    private int slabCount;
+    private int current = -1;
+    private int writePosition;
+
+    private int[] hashes;
+    private long[] references;
+    private int mask;
+    private int size;
+    private int tombstones;
+    private long garbage;
+    private int modCount;
+    private Set<Entry<Binary, Binary>> entrySet;
+
+
+    public FlatBinaryMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public FlatBinaryMap(int initialCapacity) {
+        this(initialCapacity, true);
+    }
+
+    public FlatBinaryMap(int initialCapacity, boolean direct) {
+        this(initialCapacity, direct, DEFAULT_SLAB_SIZE, BufferAllocator.getDefault());
+    }
+
+    /**
+     * @param initialCapacity expected number of entries
+     * @param direct          whether slabs are kept off-heap in direct memory
+     * @param slabSize        size of slabs, entries bigger than slab are kept in dedicated ones
+     * @param allocator       provider of slabs
+     */
+    public FlatBinaryMap(int initialCapacity, boolean direct, int slabSize, BufferAllocator allocator) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+        if (slabSize <= ENTRY_HEADER_SIZE) {
+            throw new IllegalArgumentException("slabSize <= " + ENTRY_HEADER_SIZE);
+        }
+        if (allocator == null) throw new NullPointerException("allocator == null");
+
+        this.allocator = allocator;
+        this.direct = direct;
+        this.slabSize = slabSize;
+        this.initialCapacity = initialCapacity;
+        allocateTable(capacityFor(initialCapacity));
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * @return number of bytes of slabs and index table
+     */
+    public long getMemoryUsage() {
+        long usage = (long) references.length * (Long.SIZE + Integer.SIZE) / Binary.BITS_PER_BYTE;
+        for (int i = 0; i < slabCount; i++) {
+            usage += slabs[i].capacity();
+        }
+        return usage;
+    }
+
+    /**
+     * @return number of slab bytes of overwritten and removed entries, to be reclaimed by {@link #compact()}
+     */
+    public long getGarbageLength() {
+        return garbage;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Binary)) {
+            return false;
+        }
+        try {
+            Binary k = stable((Binary) key);
+            return find(k, k.hashCode()) >= 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Binary get(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        try {
+            Binary k = stable((Binary) key);
+            int slot = find(k, k.hashCode());
+            if (slot < 0) {
+                return null;
+            }
+            return value(references[slot]);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Copies key and value into slab memory
+     *
+     * @return previous value as a view of slab memory or null
+     */
+    @Override
+    public Binary put(Binary key, Binary value) {
+        if (key == null) throw new NullPointerException("key == null");
+        if (value == null) throw new NullPointerException("value == null");
+        try {
+            Binary k = stable(key);
+            Binary v = stable(value);
+            int hash = k.hashCode();
+            int slot = find(k, hash);
+            long reference = append(k, v);
+            modCount++;
+            if (slot >= 0) {
+                Binary previous = value(references[slot]);
+                garbage += entryLength(references[slot]);
+                references[slot] = reference;
+                return previous;
+            }
+
+            if ((long) (size + tombstones + 1) * 4 > (long) references.length * 3) {
+                rehash(capacityFor(size + 1));
+            }
+            insert(hash, reference);
+            size++;
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return removed value as a view of slab memory or null
+     */
+    @Override
+    public Binary remove(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        try {
+            Binary k = stable((Binary) key);
+            int slot = find(k, k.hashCode());
+            if (slot < 0) {
+                return null;
+            }
+            Binary previous = value(references[slot]);
+            removeSlot(slot);
+            return previous;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void removeSlot(int slot) {
+        garbage += entryLength(references[slot]);
+        references[slot] = DELETED;
+        size--;
+        tombstones++;
+        modCount++;
+    }
+
+    /**
+     * Removes all entries and returns slabs to the allocator, so previously returned keys and values must not be used anymore
+     */
+    @Override
+    public void clear() {
+        releaseSlabs(slabs, slabCount);
+        slabs = new ByteBuffer[0];
+        slabCount = 0;
+        current = -1;
+        writePosition = 0;
+        allocateTable(capacityFor(initialCapacity));
+        size = 0;
+        tombstones = 0;
+        garbage = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<Binary, Binary>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Copies live entries into new slabs and returns the old ones to the allocator,
+     * so previously returned keys and values must not be used anymore
+     */
+    public void compact() {
+        ByteBuffer[] oldSlabs = slabs;
+        int oldSlabCount = slabCount;
+        slabs = new ByteBuffer[0];
+        slabCount = 0;
+        current = -1;
+        writePosition = 0;
+
+        int[] oldHashes = hashes;
+        long[] oldReferences = references;
+        allocateTable(capacityFor(Math.max(size, initialCapacity)));
+        for (int slot = 0; slot < oldReferences.length; slot++) {
+            long reference = oldReferences[slot];
+            if (reference > 0) {
+                ByteBuffer entry = entry(oldSlabs, reference);
+                int length = ENTRY_HEADER_SIZE + entry.getInt(entry.position()) + entry.getInt(entry.position() + 4);
+                entry.limit(entry.position() + length);
+                long moved = reserve(length);
+                slab(moved).put(entry);
+                insert(oldHashes[slot], moved);
+            }
+        }
+        tombstones = 0;
+        garbage = 0;
+        modCount++;
+        releaseSlabs(oldSlabs, oldSlabCount);
+    }
+
+    /**
+     * Returns slabs to the allocator
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private int find(Binary key, int hash) throws IOException {
+        long keyLength = key.length();
+        ByteBuffer[] keyBuffers = key.getUnderlyingByteBuffers();
+        int slot = spread(hash) & mask;
+        while (true) {
+            long reference = references[slot];
+            if (reference == EMPTY) {
+                return -1;
+            }
+            if (reference != DELETED && hashes[slot] == hash && keyEquals(reference, key, keyLength, keyBuffers)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long reference, Binary key, long keyLength, ByteBuffer[] keyBuffers) {
+        ByteBuffer entry = entry(slabs, reference);
+        int offset = entry.position();
+        if (entry.getInt(offset) != keyLength) {
+            return false;
+        }
+        entry.position(offset + ENTRY_HEADER_SIZE);
+        if (keyBuffers == null) {
+            entry.limit(offset + ENTRY_HEADER_SIZE + (int) keyLength);
+            return Binary.from(entry.slice()).equals(key);
+        }
+        for (ByteBuffer keyBuffer : keyBuffers) {
+            ByteBuffer k = keyBuffer.duplicate();
+            if (BulkComparison.compare(entry, k, k.remaining()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int hash, long reference) {
+        int slot = spread(hash) & mask;
+        while (references[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (references[slot] == DELETED) {
+            tombstones--;
+        }
+        hashes[slot] = hash;
+        references[slot] = reference;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldHashes = hashes;
+        long[] oldReferences = references;
+        allocateTable(capacity);
+        tombstones = 0;
+        for (int slot = 0; slot < oldReferences.length; slot++) {
+            if (oldReferences[slot] > 0) {
+                insert(oldHashes[slot], oldReferences[slot]);
+            }
+        }
+    }
+
+    private void allocateTable(int capacity) {
+        hashes = new int[capacity];
+        references = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private long append(Binary key, Binary value) throws IOException {
+        long keyLength = key.length();
+        long valueLength = value.length();
+        long length = ENTRY_HEADER_SIZE + keyLength + valueLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Entry length higher than Integer.MAX_VALUE");
+        }
+
+        long reference = reserve((int) length);
+        ByteBuffer target = slab(reference);
+        target.putInt((int) keyLength).putInt((int) valueLength);
+        copy(key, target);
+        copy(value, target);
+        return reference;
+    }
+
+    /**
+     * Reserves space for an entry, in current slab or a new one
+     *
+     * @return reference to the reserved space
+     */
+    private long reserve(int length) {
+        if (length > slabSize) {
+            return reference(addSlab(length), 0);
+        }
+        if (current < 0 || slabs[current].limit() - writePosition < length) {
+            current = addSlab(slabSize);
+            writePosition = 0;
+        }
+        long reference = reference(current, writePosition);
+        writePosition += length;
+        return reference;
+    }
+
+    private int addSlab(int capacity) {
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, Math.max(8, slabCount * 2));
+        }
+        slabs[slabCount] = direct ? allocator.allocateDirect(capacity) : allocator.allocate(capacity);
+        return slabCount++;
+    }
+
+    private void releaseSlabs(ByteBuffer[] released, int count) {
+        for (int i = 0; i < count; i++) {
+            allocator.release(released[i]);
+            released[i] = null;
+        }
+    }
+
+    private static long reference(int slab, int offset) {
+        return ((long) (slab + 1) << Integer.SIZE) | offset;
+    }
+
+    /**
+     * @return duplicate of the slab positioned at the referenced space
+     */
+    private ByteBuffer slab(long reference) {
+        return entry(slabs, reference);
+    }
+
+    private static ByteBuffer entry(ByteBuffer[] slabs, long reference) {
+        ByteBuffer entry = slabs[(int) (reference >>> Integer.SIZE) - 1].duplicate();
+        entry.position((int) reference);
+        return entry;
+    }
+
+    private int entryLength(long reference) {
+        ByteBuffer entry = entry(slabs, reference);
+        return ENTRY_HEADER_SIZE + entry.getInt(entry.position()) + entry.getInt(entry.position() + 4);
+    }
+
+    private Binary key(long reference) {
+        ByteBuffer entry = entry(slabs, reference);
+        int offset = entry.position();
+        entry.limit(offset + ENTRY_HEADER_SIZE + entry.getInt(offset));
+        entry.position(offset + ENTRY_HEADER_SIZE);
+        return Binary.from(entry.slice().asReadOnlyBuffer());
+    }
+
+    private Binary value(long reference) {
+        ByteBuffer entry = entry(slabs, reference);
+        int offset = entry.position();
+        int start = offset + ENTRY_HEADER_SIZE + entry.getInt(offset);
+        entry.limit(start + entry.getInt(offset + 4));
+        entry.position(start);
+        return Binary.from(entry.slice().asReadOnlyBuffer());
+    }
+
+    private static void copy(Binary source, ByteBuffer target) throws IOException {
+        ByteBuffer[] buffers = source.getUnderlyingByteBuffers();
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                target.put(buffer.duplicate());
+            }
+            return;
+        }
+
+        int end = target.position() + (int) source.length();
+        int limit = target.limit();
+        target.limit(end);
+        long position = 0;
+        while (target.hasRemaining()) {
+            int readlen = source.read(position, target);
+            if (readlen == Binary.EOF) {
+                throw new IllegalStateException("Binary is shorter than its length");
+            }
+            position += readlen;
+        }
+        target.limit(limit);
+    }
+
+    private static Binary stable(Binary binary) throws IOException {
+        if (binary.isConsumable()) {
+            return Binary.from(binary.asByteArray(false));
+        }
+        return binary;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int entries) {
+        long capacity = 16;
+        while (capacity * 3 < (long) entries * 4 + 4) {
+            capacity <<= 1;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Index capacity exceeded");
+        }
+        return (int) capacity;
+    }
+
+
+    private final class EntrySet extends AbstractSet<Entry<Binary, Binary>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            FlatBinaryMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<Binary, Binary>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Binary, Binary>> {
+        private int slot = -1;
+        private int next = -1;
+        private int expectedModCount = modCount;
+        private boolean removable;
+
+        @Override
+        public boolean hasNext() {
+            checkModCount();
+            if (next <= slot) {
+                next = slot + 1;
+                while (next < references.length && references[next] <= 0) {
+                    next++;
+                }
+            }
+            return next < references.length;
+        }
+
+        @Override
+        public Entry<Binary, Binary> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            slot = next;
+            removable = true;
+            long reference = references[slot];
+            return new SimpleImmutableEntry<>(key(reference), value(reference));
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+            checkModCount();
+            removeSlot(slot);
+            removable = false;
+            expectedModCount = modCount;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.sproutigy.commons.binary;
+
+import com.sproutigy.commons.binary.impl.Murmur3Hash128;
+import com.sproutigy.commons.binary.impl.XXHash64;
+
+/**
+ * Fast non-cryptographic hash function that may be computed over Binary data in chunks.
+ *
+ * @author LukeAheadNET
+ */
+public abstract class HashFunction {
+
+    /**
+     * xxHash64 with seed 0. Hash bytes are in canonical (big-endian) form.
+     */
+    public static final HashFunction XXHASH64 = xxHash64(0);
+
+    /**
+     * MurmurHash3 x64 128-bit variant with seed 0. Hash bytes are little-endian, as in the reference implementation.
+     */
+    public static final HashFunction MURMUR3_128 = murmur3_128(0);
+
+    public static HashFunction xxHash64(final long seed) {
+        return new HashFunction() {
+            @Override
+            public int bits() {
+                return 64;
+            }
+
+            @Override
+            public Hasher newHasher() {
+                return new XXHash64(seed);
+            }
+        };
+    }
+
+    public static HashFunction murmur3_128(final int seed) {
+        return new HashFunction() {
+            @Override
+            public int bits() {
+                return 128;
+            }
+
+            @Override
+            public Hasher newHasher() {
+                return new Murmur3Hash128(seed);
+            }
+        };
+    }
+
+    /**
+     * @return length of hash in bits
+     */
+    public abstract int bits();
+
+    public abstract Hasher newHasher();
+}
@@ -0,0 +1,23 @@
+package com.sproutigy.commons.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental computation of a hash. Data is provided in chunks, in order.
+ *
+ * @author LukeAheadNET
+ */
+public interface Hasher {
+
+    /**
+     * Processes remaining bytes of the buffer and advances its position to the limit
+     */
+    void update(ByteBuffer data);
+
+    /**
+     * Finishes computation
+     *
+     * @return hash bytes
+     */
+    Binary hash();
+}
@@ -0,0 +1,814 @@
+package com.sproutigy.commons.binary;
+
+import com.sproutigy.commons.binary.impl.MappedFileBinary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Persistent BinaryMap kept in two files: an append-only data file of key/value records
+ * and an open-addressing hash index in a memory-mapped file.
+ * Keys and values returned by the map are views of the memory-mapped data file, so no data is copied to the heap.
+ * Data file is grown and mapped in fixed-size regions, so appends do not map the whole file again.
+ * Updates and removals append new records, space of overwritten ones is reclaimed by {@link #compact()}.
+ * On open the existing index is mapped and only records appended after its last update are replayed;
+ * the index is rebuilt from the data file only when it is missing or does not match the data file.
+ * A torn record at the end of the data file (e.g. after a crash) is detected by its checksum and truncated.
+ * Access is synchronized, iteration order is not specified.
+ *
+ * @author LukeAheadNET
+ */
+public class MappedBinaryMap extends AbstractMap<Binary, Binary> implements BinaryMap, Closeable {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    public static final String DATA_FILE_SUFFIX = ".data";
+    public static final String INDEX_FILE_SUFFIX = ".index";
+
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final int VERSION = 1;
+
+    private static final int REGION_SIZE = 4 * 1024 * 1024;
+
+    private static final int DATA_MAGIC = 0x53424d44;
+    private static final int DATA_HEADER_SIZE = 16;
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_REMOVE = 2;
+    private static final int RECORD_HEADER_SIZE = 13;
+
+    private static final int INDEX_MAGIC = 0x53424d49;
+    private static final int INDEX_HEADER_SIZE = 48;
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final int initialCapacity;
+    private FileChannel dataChannel;
+    private MappedFileBinary mapped;
+    private Index index;
+    private long generation;
+    private long dataLength;
+    private int modCount;
+    private Set<Entry<Binary, Binary>> entrySet;
+
+
+    public MappedBinaryMap(Path basePath) throws IOException {
+        this(basePath, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Opens or creates a map stored in files named by base path with {@link #DATA_FILE_SUFFIX}
+     * and {@link #INDEX_FILE_SUFFIX} appended
+     *
+     * @param basePath        path of map files without suffix
+     * @param initialCapacity expected number of entries of a new map
+     */
+    public MappedBinaryMap(Path basePath, int initialCapacity) throws IOException {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0");
+        }
+
+        this.dataPath = sibling(basePath, DATA_FILE_SUFFIX);
+        this.indexPath = sibling(basePath, INDEX_FILE_SUFFIX);
+        this.initialCapacity = initialCapacity;
+        Files.deleteIfExists(temporary(dataPath));
+        Files.deleteIfExists(temporary(indexPath));
+
+        dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            dataChannel.close();
+            throw e;
+        }
+    }
+
+    private void open() throws IOException {
+        long size = dataChannel.size();
+        if (size < DATA_HEADER_SIZE) {
+            dataChannel.truncate(0);
+            generation = newGeneration(0);
+            writeDataHeader(dataChannel, generation);
+            size = DATA_HEADER_SIZE;
+        } else if (!readDataHeader()) {
+            throw new IOException("Not a data file of MappedBinaryMap: " + dataPath);
+        }
+
+        index = Index.open(indexPath, generation, size);
+        if (index == null) {
+            index = Index.create(indexPath, capacityFor(initialCapacity), generation);
+            index.setDataLength(DATA_HEADER_SIZE);
+        }
+        dataLength = index.getDataLength();
+        //unused tail of the last region is truncated by replay as well
+        if (dataLength < size) {
+            replay(size);
+        }
+    }
+
+    private boolean readDataHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (dataChannel.read(header, header.position()) < 0) {
+                return false;
+            }
+        }
+        if (header.getInt(0) != DATA_MAGIC || header.getInt(4) != VERSION) {
+            return false;
+        }
+        generation = header.getLong(8);
+        return true;
+    }
+
+    private static void writeDataHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+        header.putInt(DATA_MAGIC).putInt(VERSION).putLong(generation).flip();
+        writeFully(channel, header, 0);
+    }
+
+    /**
+     * Applies records appended after last index update, e.g. when the process was killed.
+     * Stops at first incomplete or corrupted record and truncates the data file there.
+     */
+    private void replay(long size) throws IOException {
+        mapped = new MappedFileBinary(dataPath, null, REGION_SIZE);
+        long position = dataLength;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            byte type = mapped.byteAt(position);
+            int keyLength = mapped.getInt(position + 1, ByteOrder.BIG_ENDIAN);
+            int valueLength = mapped.getInt(position + 5, ByteOrder.BIG_ENDIAN);
+            int checksum = mapped.getInt(position + 9, ByteOrder.BIG_ENDIAN);
+            long recordLength = (long) RECORD_HEADER_SIZE + keyLength + valueLength;
+            if ((type != TYPE_PUT && type != TYPE_REMOVE) || keyLength < 0 || valueLength < 0 || position + recordLength > size) {
+                break;
+            }
+            if ((int) mapped.subrange(position + RECORD_HEADER_SIZE, (long) keyLength + valueLength).crc32() != checksum) {
+                break;
+            }
+
+            Binary key = mapped.subrange(position + RECORD_HEADER_SIZE, keyLength);
+            if (type == TYPE_PUT) {
+                indexPut(key, key.hashCode(), position);
+            } else {
+                indexRemove(key, key.hashCode(), recordLength);
+            }
+            position += recordLength;
+        }
+
+        if (position < size) {
+            dataChannel.truncate(position);
+            mapped = null;
+        }
+        dataLength = position;
+        index.setDataLength(position);
+    }
+
+    public Path getDataPath() {
+        return dataPath;
+    }
+
+    public Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * @return length of data file, including records that are not used anymore
+     */
+    public synchronized long getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * @return number of bytes of overwritten and removed records in data file, to be reclaimed by {@link #compact()}
+     */
+    public synchronized long getGarbageLength() {
+        ensureOpen();
+        return index.getGarbage();
+    }
+
+    @Override
+    public synchronized int size() {
+        ensureOpen();
+        return index.getSize();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        if (!(key instanceof Binary)) {
+            return false;
+        }
+        ensureOpen();
+        try {
+            Binary k = stable((Binary) key);
+            return find(k, k.hashCode()) >= 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized Binary get(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        ensureOpen();
+        try {
+            Binary k = stable((Binary) key);
+            int slot = find(k, k.hashCode());
+            if (slot < 0) {
+                return null;
+            }
+            return value(index.getOffset(slot));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Appends the record to the data file and points the index at it.
+     * Consumable values are streamed directly to the data file.
+     *
+     * @return previous value as a view of the data file or null
+     */
+    @Override
+    public synchronized Binary put(Binary key, Binary value) {
+        if (key == null) throw new NullPointerException("key == null");
+        if (value == null) throw new NullPointerException("value == null");
+        ensureOpen();
+        try {
+            Binary k = stable(key);
+            int hash = k.hashCode();
+            int slot = find(k, hash);
+            Binary previous = slot >= 0 ? value(index.getOffset(slot)) : null;
+            long offset = append(TYPE_PUT, k, value);
+            indexPut(k, hash, offset);
+            index.setDataLength(dataLength);
+            modCount++;
+            return previous;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Appends removal record to the data file
+     *
+     * @return removed value as a view of the data file or null
+     */
+    @Override
+    public synchronized Binary remove(Object key) {
+        if (!(key instanceof Binary)) {
+            return null;
+        }
+        ensureOpen();
+        try {
+            Binary k = stable((Binary) key);
+            int hash = k.hashCode();
+            int slot = find(k, hash);
+            if (slot < 0) {
+                return null;
+            }
+            Binary previous = value(index.getOffset(slot));
+            long offset = append(TYPE_REMOVE, k, null);
+            indexRemove(k, hash, dataLength - offset);
+            index.setDataLength(dataLength);
+            modCount++;
+            return previous;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Atomically replaces current files with empty ones, like {@link #compact()} does.
+     * Keys and values returned before remain valid.
+     */
+    @Override
+    public synchronized void clear() {
+        ensureOpen();
+        try {
+            Path clearedPath = temporary(dataPath);
+            long clearedGeneration = newGeneration(generation);
+            try (FileChannel channel = FileChannel.open(clearedPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writeDataHeader(channel, clearedGeneration);
+                channel.force(true);
+            }
+            Index cleared = Index.create(temporary(indexPath), capacityFor(initialCapacity), clearedGeneration);
+            cleared.setDataLength(DATA_HEADER_SIZE);
+            cleared.force();
+            replaceFiles(clearedPath, cleared, clearedGeneration, DATA_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Set<Entry<Binary, Binary>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Forces data file and index to the storage device
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        dataChannel.force(false);
+        index.force();
+    }
+
+    /**
+     * Rewrites live records into a new data file with a new index and atomically replaces the current files.
+     * Keys and values returned before remain valid, as they keep mapping of the previous data file.
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        Path compactedPath = temporary(dataPath);
+        long compactedGeneration = newGeneration(generation);
+        int size = index.getSize();
+        Index compacted = Index.create(temporary(indexPath), capacityFor(Math.max(size, initialCapacity)), compactedGeneration);
+        MappedFileBinary data = data();
+
+        long position = DATA_HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(compactedPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeDataHeader(channel, compactedGeneration);
+            channel.position(position);
+
+            for (int slot = 0; slot < index.capacity; slot++) {
+                long offset = index.getOffset(slot);
+                if (offset > 0) {
+                    long recordLength = recordLength(offset);
+                    data.subrange(offset, recordLength).to(channel);
+                    compacted.insert(index.getHash(slot), index.getKeyLength(slot), position);
+                    position += recordLength;
+                }
+            }
+            channel.force(true);
+        }
+        compacted.setSize(size);
+        compacted.setDataLength(position);
+        compacted.force();
+        replaceFiles(compactedPath, compacted, compactedGeneration, position);
+    }
+
+    /**
+     * Moves new data file and the temporary index over current files.
+     * Previous data file is unlinked but not modified, so its mappings stay valid.
+     */
+    private void replaceFiles(Path newDataPath, Index newIndex, long newGeneration, long newDataLength) throws IOException {
+        dataChannel.close();
+        Files.move(newDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temporary(indexPath), indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = newIndex;
+        generation = newGeneration;
+        dataLength = newDataLength;
+        mapped = null;
+        modCount++;
+    }
+
+    /**
+     * Flushes and closes the data file, unused space of the last region is truncated.
+     * Keys and values returned before remain valid.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (dataChannel == null) {
+            return;
+        }
+        try {
+            if (dataChannel.size() > dataLength) {
+                dataChannel.truncate(dataLength);
+            }
+            flush();
+        } finally {
+            dataChannel.close();
+            dataChannel = null;
+            index = null;
+            mapped = null;
+        }
+    }
+
+    private void ensureOpen() {
+        if (dataChannel == null) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    /**
+     * Data file is extended to whole regions, so only new regions have to be mapped when it grows
+     */
+    private MappedFileBinary data() throws IOException {
+        if (mapped == null || mapped.length() < dataLength) {
+            long size = (dataLength + REGION_SIZE - 1) / REGION_SIZE * REGION_SIZE;
+            if (dataChannel.size() < size) {
+                writeFully(dataChannel, ByteBuffer.allocate(1), size - 1);
+            }
+            mapped = mapped == null ? new MappedFileBinary(dataPath, null, REGION_SIZE) : mapped.remap();
+        }
+        return mapped;
+    }
+
+    private Binary key(long offset) throws IOException {
+        MappedFileBinary data = data();
+        return data.subrange(offset + RECORD_HEADER_SIZE, data.getInt(offset + 1, ByteOrder.BIG_ENDIAN));
+    }
+
+    private Binary value(long offset) throws IOException {
+        MappedFileBinary data = data();
+        int keyLength = data.getInt(offset + 1, ByteOrder.BIG_ENDIAN);
+        int valueLength = data.getInt(offset + 5, ByteOrder.BIG_ENDIAN);
+        return data.subrange(offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+    }
+
+    private long recordLength(long offset) throws IOException {
+        MappedFileBinary data = data();
+        return (long) RECORD_HEADER_SIZE + data.getInt(offset + 1, ByteOrder.BIG_ENDIAN) + data.getInt(offset + 5, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Writes key and value first and the record header last, so a record interrupted by a crash fails its checksum
+     *
+     * @return offset of the record
+     */
+    private long append(byte type, Binary key, Binary value) throws IOException {
+        long offset = dataLength;
+        long keyLength = key.length();
+        long valueLength = 0;
+        dataChannel.position(offset + RECORD_HEADER_SIZE);
+        key.to(dataChannel);
+        if (value != null) {
+            dataChannel.position(offset + RECORD_HEADER_SIZE + keyLength);
+            value.to(dataChannel);
+            if (value.isConsumable()) {
+                valueLength = dataChannel.position() - offset - RECORD_HEADER_SIZE - keyLength;
+            } else {
+                valueLength = value.length();
+            }
+        }
+        if (keyLength > Integer.MAX_VALUE || valueLength > Integer.MAX_VALUE) {
+            dataChannel.truncate(offset);
+            throw new IllegalArgumentException("Key or value length higher than Integer.MAX_VALUE");
+        }
+        dataLength = offset + RECORD_HEADER_SIZE + keyLength + valueLength;
+
+        long checksum;
+        if (value == null) {
+            checksum = key.crc32();
+        } else if (value.isConsumable()) {
+            checksum = data().subrange(offset + RECORD_HEADER_SIZE, keyLength + valueLength).crc32();
+        } else {
+            checksum = Binary.concat(key, value).crc32();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        header.put(type).putInt((int) keyLength).putInt((int) valueLength).putInt((int) checksum).flip();
+        writeFully(dataChannel, header, offset);
+        return offset;
+    }
+
+    private int find(Binary key, int hash) throws IOException {
+        long keyLength = key.length();
+        int slot = spread(hash) & index.mask;
+        while (true) {
+            long offset = index.getOffset(slot);
+            if (offset == EMPTY) {
+                return -1;
+            }
+            if (offset != DELETED && index.getHash(slot) == hash && index.getKeyLength(slot) == keyLength
+                    && key(offset).equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & index.mask;
+        }
+    }
+
+    private void indexPut(Binary key, int hash, long offset) throws IOException {
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            long previous = index.getOffset(slot);
+            if (previous != offset) {
+                index.setGarbage(index.getGarbage() + recordLength(previous));
+                index.setOffset(slot, offset);
+            }
+            return;
+        }
+
+        int size = index.getSize();
+        if ((long) (size + index.getTombstones() + 1) * 4 > (long) index.capacity * 3) {
+            rehash(capacityFor(size + 1));
+        }
+        if (index.insert(hash, (int) key.length(), offset)) {
+            index.setTombstones(index.getTombstones() - 1);
+        }
+        index.setSize(size + 1);
+    }
+
+    private void indexRemove(Binary key, int hash, long recordLength) throws IOException {
+        long garbage = index.getGarbage() + recordLength;
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            garbage += recordLength(index.getOffset(slot));
+            index.setOffset(slot, DELETED);
+            index.setSize(index.getSize() - 1);
+            index.setTombstones(index.getTombstones() + 1);
+        }
+        index.setGarbage(garbage);
+    }
+
+    /**
+     * Builds a new index file without tombstones and atomically replaces the current one
+     */
+    private void rehash(int capacity) throws IOException {
+        Path path = temporary(indexPath);
+        Index rehashed = Index.create(path, capacity, generation);
+        for (int slot = 0; slot < index.capacity; slot++) {
+            long offset = index.getOffset(slot);
+            if (offset > 0) {
+                rehashed.insert(index.getHash(slot), index.getKeyLength(slot), offset);
+            }
+        }
+        rehashed.setSize(index.getSize());
+        rehashed.setGarbage(index.getGarbage());
+        rehashed.setDataLength(index.getDataLength());
+        rehashed.force();
+        Files.move(path, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = rehashed;
+    }
+
+    private static Binary stable(Binary binary) throws IOException {
+        if (binary.isConsumable()) {
+            return Binary.from(binary.asByteArray(false));
+        }
+        return binary;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int entries) {
+        long capacity = 16;
+        while (capacity * 3 < (long) entries * 4 + 4) {
+            capacity <<= 1;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Index capacity exceeded");
+        }
+        return (int) capacity;
+    }
+
+    private static long newGeneration(long previous) {
+        Random random = new Random();
+        long generation;
+        do {
+            generation = random.nextLong();
+        } while (generation == previous || generation == 0);
+        return generation;
+    }
+
+    private static Path sibling(Path path, String suffix) {
+        return path.resolveSibling(path.getFileName().toString() + suffix);
+    }
+
+    private static Path temporary(Path path) {
+        return sibling(path, ".tmp");
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+
+    /**
+     * Memory-mapped open-addressing table of (record offset, key hash, key length) slots with linear probing.
+     * Header keeps generation of the data file the index belongs to and length of data covered by the index.
+     */
+    private static final class Index {
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final int mask;
+
+        private Index(MappedByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        static Index create(Path path, int capacity, long generation) throws IOException {
+            Files.deleteIfExists(path);
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            }
+            buffer.putInt(0, INDEX_MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putLong(24, generation);
+            return new Index(buffer, capacity);
+        }
+
+        /**
+         * @return mapped index or null when it does not exist or does not match the data file
+         */
+        static Index open(Path path, long generation, long dataSize) throws IOException {
+            if (!Files.isRegularFile(path)) {
+                return null;
+            }
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size < INDEX_HEADER_SIZE || size > INDEX_HEADER_SIZE + (long) MAX_CAPACITY * SLOT_SIZE) {
+                    return null;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+
+            int capacity = buffer.getInt(8);
+            if (buffer.getInt(0) != INDEX_MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(24) != generation
+                    || capacity <= 0 || Integer.bitCount(capacity) != 1
+                    || buffer.capacity() != INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                return null;
+            }
+            long dataLength = buffer.getLong(32);
+            if (dataLength < DATA_HEADER_SIZE || dataLength > dataSize) {
+                return null;
+            }
+            return new Index(buffer, capacity);
+        }
+
+        int getSize() {
+            return buffer.getInt(12);
+        }
+
+        void setSize(int size) {
+            buffer.putInt(12, size);
+        }
+
+        int getTombstones() {
+            return buffer.getInt(16);
+        }
+
+        void setTombstones(int tombstones) {
+            buffer.putInt(16, tombstones);
+        }
+
+        long getDataLength() {
+            return buffer.getLong(32);
+        }
+
+        void setDataLength(long dataLength) {
+            buffer.putLong(32, dataLength);
+        }
+
+        long getGarbage() {
+            return buffer.getLong(40);
+        }
+
+        void setGarbage(long garbage) {
+            buffer.putLong(40, garbage);
+        }
+
+        long getOffset(int slot) {
+            return buffer.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE);
+        }
+
+        void setOffset(int slot, long offset) {
+            buffer.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE, offset);
+        }
+
+        int getHash(int slot) {
+            return buffer.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8);
+        }
+
+        int getKeyLength(int slot) {
+            return buffer.getInt(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 12);
+        }
+
+        /**
+         * Stores entry in first free slot of its probe sequence
+         *
+         * @return true when a tombstone has been reused
+         */
+        boolean insert(int hash, int keyLength, long offset) {
+            int slot = spread(hash) & mask;
+            long current;
+            while ((current = getOffset(slot)) > 0) {
+                slot = (slot + 1) & mask;
+            }
+            int position = INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+            buffer.putInt(position + 8, hash);
+            buffer.putInt(position + 12, keyLength);
+            buffer.putLong(position, offset);
+            return current == DELETED;
+        }
+
+        void force() {
+            buffer.force();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Binary, Binary>> {
+        @Override
+        public int size() {
+            return MappedBinaryMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            MappedBinaryMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<Binary, Binary>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Binary, Binary>> {
+        private int slot = -1;
+        private int next = -1;
+        private int expectedModCount;
+        private Binary lastKey;
+
+        EntryIterator() {
+            synchronized (MappedBinaryMap.this) {
+                expectedModCount = modCount;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            synchronized (MappedBinaryMap.this) {
+                checkModCount();
+                if (next <= slot) {
+                    next = slot + 1;
+                    while (next < index.capacity && index.getOffset(next) <= 0) {
+                        next++;
+                    }
+                }
+                return next < index.capacity;
+            }
+        }
+
+        @Override
+        public Entry<Binary, Binary> next() {
+            synchronized (MappedBinaryMap.this) {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                slot = next;
+                try {
+                    long offset = index.getOffset(slot);
+                    lastKey = key(offset);
+                    return new SimpleImmutableEntry<>(lastKey, value(offset));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        @Override
+        public void remove() {
+            synchronized (MappedBinaryMap.this) {
+                if (lastKey == null) {
+                    throw new IllegalStateException();
+                }
+                checkModCount();
+                MappedBinaryMap.this.remove(lastKey);
+                lastKey = null;
+                expectedModCount = modCount;
+            }
+        }
+
+        private void checkModCount() {
+            ensureOpen();
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
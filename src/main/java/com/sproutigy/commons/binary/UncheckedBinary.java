@@ -4,10 +4,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
 
 public class UncheckedBinary extends Binary {
     protected Binary decorated;
@@ -151,6 +155,15 @@ public class UncheckedBinary extends Binary {
         }
     }
 
+    @Override
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        if (decorated == null) {
+            return super.getUnderlyingByteBuffers();
+        } else {
+            return decorated.getUnderlyingByteBuffers();
+        }
+    }
+
     @Override
     public String asStringASCII() {
         try {
@@ -307,6 +320,162 @@ public class UncheckedBinary extends Binary {
         }
     }
 
+    @Override
+    public short asShort(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asShort(order);
+            } else {
+                return decorated.asShort(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int asInteger(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asInteger(order);
+            } else {
+                return decorated.asInteger(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long asLong(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asLong(order);
+            } else {
+                return decorated.asLong(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public float asFloat(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asFloat(order);
+            } else {
+                return decorated.asFloat(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public double asDouble(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asDouble(order);
+            } else {
+                return decorated.asDouble(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public char asCharacter(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asCharacter(order);
+            } else {
+                return decorated.asCharacter(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int[] asIntArray() {
+        try {
+            if (decorated == null) {
+                return super.asIntArray();
+            } else {
+                return decorated.asIntArray();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int[] asIntArray(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asIntArray(order);
+            } else {
+                return decorated.asIntArray(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long[] asLongArray() {
+        try {
+            if (decorated == null) {
+                return super.asLongArray();
+            } else {
+                return decorated.asLongArray();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long[] asLongArray(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asLongArray(order);
+            } else {
+                return decorated.asLongArray(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public double[] asDoubleArray() {
+        try {
+            if (decorated == null) {
+                return super.asDoubleArray();
+            } else {
+                return decorated.asDoubleArray();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public double[] asDoubleArray(ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.asDoubleArray(order);
+            } else {
+                return decorated.asDoubleArray(order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public String toTempFile() {
         try {
@@ -392,6 +561,24 @@ public class UncheckedBinary extends Binary {
         }
     }
 
+    @Override
+    protected boolean isTransferable() {
+        if (decorated == null) {
+            return super.isTransferable();
+        } else {
+            return decorated.isTransferable();
+        }
+    }
+
+    @Override
+    protected long transferTo(long position, long count, WritableByteChannel channel) throws IOException {
+        if (decorated == null) {
+            return super.transferTo(position, count, channel);
+        } else {
+            return decorated.transferTo(position, count, channel);
+        }
+    }
+
     @Override
     public void to(BinaryBuilder binaryBuilder) {
         if (decorated == null) {
@@ -492,6 +679,202 @@ public class UncheckedBinary extends Binary {
         }
     }
 
+    @Override
+    public int read(long position, ByteBuffer dst) {
+        try {
+            if (decorated == null) {
+                return super.read(position, dst);
+            } else {
+                return decorated.read(position, dst);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public byte byteAt(long position) {
+        try {
+            if (decorated == null) {
+                return super.byteAt(position);
+            } else {
+                return decorated.byteAt(position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public short getShort(long position) {
+        try {
+            if (decorated == null) {
+                return super.getShort(position);
+            } else {
+                return decorated.getShort(position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public short getShort(long position, ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.getShort(position, order);
+            } else {
+                return decorated.getShort(position, order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int getInt(long position) {
+        try {
+            if (decorated == null) {
+                return super.getInt(position);
+            } else {
+                return decorated.getInt(position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int getInt(long position, ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.getInt(position, order);
+            } else {
+                return decorated.getInt(position, order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long getLong(long position) {
+        try {
+            if (decorated == null) {
+                return super.getLong(position);
+            } else {
+                return decorated.getLong(position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long getLong(long position, ByteOrder order) {
+        try {
+            if (decorated == null) {
+                return super.getLong(position, order);
+            } else {
+                return decorated.getLong(position, order);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeBase64To(Writer writer) {
+        try {
+            if (decorated == null) {
+                super.encodeBase64To(writer);
+            } else {
+                decorated.encodeBase64To(writer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeBase64To(Writer writer, BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) {
+        try {
+            if (decorated == null) {
+                super.encodeBase64To(writer, dialect, padding);
+            } else {
+                decorated.encodeBase64To(writer, dialect, padding);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeBase64To(OutputStream out) {
+        try {
+            if (decorated == null) {
+                super.encodeBase64To(out);
+            } else {
+                decorated.encodeBase64To(out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeBase64To(OutputStream out, BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) {
+        try {
+            if (decorated == null) {
+                super.encodeBase64To(out, dialect, padding);
+            } else {
+                decorated.encodeBase64To(out, dialect, padding);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeHexTo(Writer writer) {
+        try {
+            if (decorated == null) {
+                super.encodeHexTo(writer);
+            } else {
+                decorated.encodeHexTo(writer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void encodeHexTo(OutputStream out) {
+        try {
+            if (decorated == null) {
+                super.encodeHexTo(out);
+            } else {
+                decorated.encodeHexTo(out);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public UncheckedBinary base64View() {
+        return base64View(BaseEncoding.Dialect.STANDARD, BaseEncoding.Padding.STANDARD);
+    }
+
+    @Override
+    public UncheckedBinary base64View(BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) {
+        if (decorated == null) {
+            return new UncheckedBinary(super.base64View(dialect, padding));
+        } else {
+            return new UncheckedBinary(decorated.base64View(dialect, padding));
+        }
+    }
+
     @Override
     public Binary subrange(long offset) {
         try {
@@ -508,11 +891,16 @@ public class UncheckedBinary extends Binary {
     @Override
     public UncheckedBinary subrange(long offset, long length) {
         try {
+            Binary subrange;
             if (decorated == null) {
-                return (UncheckedBinary)super.subrange(offset, length);
+                subrange = super.subrange(offset, length);
             } else {
-                return (UncheckedBinary) decorated.subrange(offset, length);
+                subrange = decorated.subrange(offset, length);
             }
+            if (subrange instanceof UncheckedBinary) {
+                return (UncheckedBinary) subrange;
+            }
+            return new UncheckedBinary(subrange);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -536,6 +924,123 @@ public class UncheckedBinary extends Binary {
         }
     }
 
+    @Override
+    public Binary hash(HashFunction hashFunction) {
+        try {
+            if (decorated == null) {
+                return super.hash(hashFunction);
+            } else {
+                return decorated.hash(hashFunction);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long hash64() {
+        try {
+            if (decorated == null) {
+                return super.hash64();
+            } else {
+                return decorated.hash64();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Binary hash128() {
+        try {
+            if (decorated == null) {
+                return super.hash128();
+            } else {
+                return decorated.hash128();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Binary digest(String algorithm) {
+        try {
+            if (decorated == null) {
+                return super.digest(algorithm);
+            } else {
+                return decorated.digest(algorithm);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Binary digest(MessageDigest messageDigest) {
+        try {
+            if (decorated == null) {
+                return super.digest(messageDigest);
+            } else {
+                return decorated.digest(messageDigest);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long checksum(Checksum checksum) {
+        try {
+            if (decorated == null) {
+                return super.checksum(checksum);
+            } else {
+                return decorated.checksum(checksum);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long crc32() {
+        try {
+            if (decorated == null) {
+                return super.crc32();
+            } else {
+                return decorated.crc32();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long crc32c() {
+        try {
+            if (decorated == null) {
+                return super.crc32c();
+            } else {
+                return decorated.crc32c();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long adler32() {
+        try {
+            if (decorated == null) {
+                return super.adler32();
+            } else {
+                return decorated.adler32();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public int compareTo(Binary other) {
         if (decorated == null) {
@@ -2,8 +2,8 @@ package com.sproutigy.commons.binary.impl;
 
 import com.sproutigy.commons.binary.AbstractUncheckedBinary;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author LukeAheadNET
@@ -24,7 +24,7 @@ public abstract class AbstractBytesBinary extends AbstractUncheckedBinary {
 
     @Override
     public InputStream asStream() {
-        return new ByteArrayInputStream(asByteArray(false));
+        return new ByteBufferInputStream(ByteBuffer.wrap(asByteArray(false)));
     }
 
     @Override
@@ -32,8 +32,15 @@ public abstract class AbstractStreamableBinary extends Binary {
     @Override
     public abstract InputStream asStream() throws IOException;
 
+    /**
+     * Returns lazy view when data source is not consumable, otherwise subrange data has to be read immediately.
+     */
     @Override
     public Binary subrange(long offset, long length) throws IOException {
+        if (!isConsumable()) {
+            return new SubrangeBinary(this, offset, length);
+        }
+
         InputStream stream = asStream();
         try {
             long skipped = stream.skip(offset);
@@ -0,0 +1,126 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.BaseEncoding;
+import com.sproutigy.commons.binary.Binary;
+import com.sproutigy.commons.binary.Charsets;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Base 64 representation of other Binary, encoded lazily while being read.
+ * Memory usage does not depend on size of the source. Length is known whenever length of the source is known.
+ *
+ * @author LukeAheadNET
+ */
+public class Base64ViewBinary extends AbstractStreamableBinary {
+
+    private static final int INPUT_SIZE = 3 * 1024;
+
+    private Binary source;
+    private BaseEncoding.Dialect dialect;
+    private BaseEncoding.Padding padding;
+
+
+    public Base64ViewBinary(Binary source, BaseEncoding.Dialect dialect, BaseEncoding.Padding padding) {
+        if (source == null) throw new NullPointerException("source == null");
+        this.source = source;
+        this.dialect = dialect;
+        this.padding = padding;
+        setCharset(Charsets.US_ASCII);
+    }
+
+    public Binary getSource() {
+        return source;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        return source.isConsumable();
+    }
+
+    @Override
+    public boolean hasLength() throws IOException {
+        return length != LENGTH_UNSPECIFIED || source.hasLength();
+    }
+
+    @Override
+    protected long provideLength() throws IOException {
+        if (source.hasLength()) {
+            return BaseEncoding.base64Length(source.length(), padding);
+        }
+        return super.provideLength();
+    }
+
+    @Override
+    public InputStream asStream() throws IOException {
+        return new Base64InputStream(source.asStream());
+    }
+
+
+    private class Base64InputStream extends InputStream {
+        private InputStream in;
+        private BaseEncoding.Base64Encoder encoder = new BaseEncoding.Base64Encoder(dialect, padding);
+        private byte[] input = new byte[INPUT_SIZE];
+        private char[] output = new char[INPUT_SIZE / 3 * 4 + 4];
+        private int position;
+        private int count;
+        private boolean finished;
+
+        Base64InputStream(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean fill() throws IOException {
+            while (position == count) {
+                if (finished) {
+                    return false;
+                }
+                position = 0;
+                int readlen = in.read(input);
+                if (readlen == EOF) {
+                    count = encoder.finish(output, 0);
+                    finished = true;
+                } else {
+                    count = encoder.encode(ByteBuffer.wrap(input, 0, readlen), output, 0);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return EOF;
+            }
+            return output[position++];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return EOF;
+            }
+            int readlen = Math.min(len, count - position);
+            for (int i = 0; i < readlen; i++) {
+                b[off + i] = (byte) output[position + i];
+            }
+            position += readlen;
+            return readlen;
+        }
+
+        @Override
+        public int available() {
+            return count - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
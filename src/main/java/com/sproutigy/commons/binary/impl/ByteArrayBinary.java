@@ -4,11 +4,11 @@ import com.sproutigy.commons.binary.AbstractUncheckedBinary;
 import com.sproutigy.commons.binary.Binary;
 import com.sproutigy.commons.binary.UncheckedBinary;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
-import java.util.Arrays;
 
 /**
  * @author LukeAheadNET
@@ -40,42 +40,86 @@ public class ByteArrayBinary extends AbstractUncheckedBinary {
     }
 
     @Override
-    public boolean equals(Object other) {
-        if (!(other instanceof ByteArrayBinary)) {
-            return super.equals(other);
+    public boolean isConsumable() {
+        return false;
+    }
+
+    @Override
+    public byte[] asByteArray(boolean modifiable) {
+        if (!modifiable) {
+            if (offset == 0 && bytes.length == length)
+                return bytes;
         }
 
-        return Arrays.equals(asByteArray(false), ((ByteArrayBinary) other).asByteArray(false));
+        byte[] out = new byte[(int)length];
+        System.arraycopy(bytes, offset, out, 0, (int)length);
+        return out;
     }
 
     @Override
-    public int hashCode() {
-        if (bytes == null || bytes.length == 0)
-            return 0;
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        return new ByteBuffer[] { ByteBuffer.wrap(bytes, offset, (int)length).slice() };
+    }
 
-        int result = 1;
-        for (int i=offset; i<length; i++) {
-            result = 31 * result + bytes[i];
-        }
+    @Override
+    public byte byteAt(long position) {
+        return bytes[index(position, 1)];
+    }
 
-        return result;
+    @Override
+    public short getShort(long position, ByteOrder order) {
+        return (short) compose(index(position, Short.SIZE / Byte.SIZE), Short.SIZE / Byte.SIZE, order);
     }
 
     @Override
-    public boolean isConsumable() {
-        return false;
+    public int getInt(long position, ByteOrder order) {
+        return (int) compose(index(position, Integer.SIZE / Byte.SIZE), Integer.SIZE / Byte.SIZE, order);
     }
 
     @Override
-    public byte[] asByteArray(boolean modifiable) {
-        if (!modifiable) {
-            if (offset == 0 && bytes.length == length)
-                return bytes;
+    public long getLong(long position, ByteOrder order) {
+        return compose(index(position, Long.SIZE / Byte.SIZE), Long.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= length) {
+            return EOF;
         }
 
-        byte[] out = new byte[(int)length];
-        System.arraycopy(bytes, offset, out, 0, (int)length);
-        return out;
+        int count = (int) Math.min(dst.remaining(), length - position);
+        dst.put(bytes, offset + (int) position, count);
+        return count;
+    }
+
+    /**
+     * @return index in underlying array of the first of requested bytes
+     */
+    private int index(long position, int size) {
+        if (position < 0 || position + size > length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        return offset + (int) position;
+    }
+
+    private long compose(int index, int size, ByteOrder order) {
+        long value = 0;
+        if (order == ByteOrder.BIG_ENDIAN) {
+            for (int i = 0; i < size; i++) {
+                value = (value << Byte.SIZE) | (bytes[index + i] & 0xFFL);
+            }
+        } else {
+            for (int i = size - 1; i >= 0; i--) {
+                value = (value << Byte.SIZE) | (bytes[index + i] & 0xFFL);
+            }
+        }
+        return value;
     }
 
     @Override
@@ -94,7 +138,7 @@ public class ByteArrayBinary extends AbstractUncheckedBinary {
 
     @Override
     public InputStream asStream() {
-        return new ByteArrayInputStream(bytes, offset, (int)length);
+        return new ByteBufferInputStream(ByteBuffer.wrap(bytes, offset, (int)length));
     }
 
     @Override
@@ -1,8 +1,8 @@
 package com.sproutigy.commons.binary.impl;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * @author LukeAheadNET
@@ -52,18 +52,65 @@ public class ByteBufferBinary extends AbstractBytesBinary {
     }
 
     @Override
-    public InputStream asStream() {
-        return new InputStream() {
-            private int position = 0;
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        ByteBuffer buffer = byteBuffer.duplicate();
+        buffer.position(0);
+        return new ByteBuffer[] { buffer.slice() };
+    }
 
-            @Override
-            public int read() throws IOException {
-                if (position >= byteBuffer.limit()) {
-                    return EOF;
-                }
+    @Override
+    public byte byteAt(long position) {
+        return byteBuffer.get(index(position, 1));
+    }
 
-                return byteBuffer.get(position++);
-            }
-        };
+    @Override
+    public short getShort(long position, ByteOrder order) {
+        short value = byteBuffer.getShort(index(position, Short.SIZE / Byte.SIZE));
+        return byteBuffer.order() == order ? value : Short.reverseBytes(value);
+    }
+
+    @Override
+    public int getInt(long position, ByteOrder order) {
+        int value = byteBuffer.getInt(index(position, Integer.SIZE / Byte.SIZE));
+        return byteBuffer.order() == order ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public long getLong(long position, ByteOrder order) {
+        long value = byteBuffer.getLong(index(position, Long.SIZE / Byte.SIZE));
+        return byteBuffer.order() == order ? value : Long.reverseBytes(value);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= byteBuffer.limit()) {
+            return EOF;
+        }
+
+        ByteBuffer source = byteBuffer.duplicate();
+        source.limit((int) Math.min(source.limit(), position + dst.remaining())).position((int) position);
+        int count = source.remaining();
+        dst.put(source);
+        return count;
+    }
+
+    private int index(long position, int size) {
+        if (position < 0 || position + size > byteBuffer.limit()) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        return (int) position;
+    }
+
+    @Override
+    public InputStream asStream() {
+        ByteBuffer buffer = byteBuffer.duplicate();
+        buffer.position(0);
+        return new ByteBufferInputStream(buffer);
     }
 }
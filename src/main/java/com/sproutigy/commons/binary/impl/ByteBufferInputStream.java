@@ -0,0 +1,125 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.BufferAllocator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * InputStream of remaining bytes of a buffer, heap or direct.
+ * Reads in bulk from a duplicate, so position of the source buffer is never changed.
+ * Supports skipping, mark/reset and transferring all remaining data to a stream or channel without
+ * intermediate copies for heap buffers.
+ *
+ * @author LukeAheadNET
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private static final int TRANSFER_CHUNK_SIZE = 8 * 1024;
+
+    private final ByteBuffer buffer;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.mark = this.buffer.position();
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(mark);
+    }
+
+    /**
+     * Writes all remaining bytes to the stream.
+     * Heap buffers are written with a single call, direct ones in chunks through a pooled buffer.
+     *
+     * @return number of transferred bytes
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        int count = buffer.remaining();
+        if (count == 0) {
+            return 0;
+        }
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+            buffer.position(buffer.limit());
+            return count;
+        }
+
+        BufferAllocator allocator = BufferAllocator.getDefault();
+        ByteBuffer chunk = allocator.allocate(Math.min(count, TRANSFER_CHUNK_SIZE));
+        try {
+            while (buffer.hasRemaining()) {
+                int len = Math.min(buffer.remaining(), chunk.limit());
+                buffer.get(chunk.array(), chunk.arrayOffset(), len);
+                out.write(chunk.array(), chunk.arrayOffset(), len);
+            }
+        } finally {
+            allocator.release(chunk);
+        }
+        return count;
+    }
+
+    /**
+     * Writes all remaining bytes directly to the channel, which should be in blocking mode
+     *
+     * @return number of transferred bytes
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        int count = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sproutigy.commons.binary.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) checksum, table-driven with slicing-by-8.
+ * Accepts byte buffers directly, so heap and direct buffers are processed without copying.
+ *
+ * @author LukeAheadNET
+ */
+public class CRC32C implements Checksum {
+
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    private static final int[][] TABLES = createTables();
+
+    private int crc = 0xFFFFFFFF;
+
+
+    private static int[][] createTables() {
+        int[][] tables = new int[8][256];
+        for (int i = 0; i < 256; i++) {
+            int value = i;
+            for (int bit = 0; bit < 8; bit++) {
+                value = (value & 1) != 0 ? (value >>> 1) ^ POLYNOMIAL : value >>> 1;
+            }
+            tables[0][i] = value;
+        }
+        for (int k = 1; k < tables.length; k++) {
+            for (int i = 0; i < 256; i++) {
+                int previous = tables[k - 1][i];
+                tables[k][i] = (previous >>> 8) ^ tables[0][previous & 0xFF];
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public void update(int b) {
+        crc = TABLES[0][(crc ^ b) & 0xFF] ^ (crc >>> 8);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        update(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Processes remaining bytes of the buffer and advances its position to the limit
+     */
+    public void update(ByteBuffer buffer) {
+        ByteBuffer input = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int index = input.position();
+        int limit = input.limit();
+        int[][] t = TABLES;
+        int value = crc;
+        for (; index + 8 <= limit; index += 8) {
+            long word = input.getLong(index);
+            int low = (int) word ^ value;
+            int high = (int) (word >>> 32);
+            value = t[7][low & 0xFF] ^ t[6][(low >>> 8) & 0xFF] ^ t[5][(low >>> 16) & 0xFF] ^ t[4][low >>> 24]
+                    ^ t[3][high & 0xFF] ^ t[2][(high >>> 8) & 0xFF] ^ t[1][(high >>> 16) & 0xFF] ^ t[0][high >>> 24];
+        }
+        for (; index < limit; index++) {
+            value = t[0][(value ^ input.get(index)) & 0xFF] ^ (value >>> 8);
+        }
+        crc = value;
+        buffer.position(limit);
+    }
+
+    @Override
+    public long getValue() {
+        return (~crc) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+}
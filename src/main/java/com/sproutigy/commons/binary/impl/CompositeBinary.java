@@ -0,0 +1,370 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.Binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary composed of multiple segments (rope-style concatenation).
+ * Segments are not copied - data is read from them in order when consumed.
+ *
+ * @author LukeAheadNET
+ */
+public class CompositeBinary extends Binary {
+
+    private List<Binary> segments;
+
+
+    public CompositeBinary(Binary... segments) {
+        this(Arrays.asList(segments));
+    }
+
+    public CompositeBinary(List<? extends Binary> segments) {
+        List<Binary> flattened = new ArrayList<>(segments.size());
+        for (Binary segment : segments) {
+            if (segment == null) {
+                throw new NullPointerException("segment == null");
+            }
+            if (segment instanceof CompositeBinary) {
+                flattened.addAll(((CompositeBinary) segment).segments);
+            } else {
+                flattened.add(segment);
+            }
+        }
+        this.segments = Collections.unmodifiableList(flattened);
+        setCharset(commonCharset(flattened));
+    }
+
+    private static Charset commonCharset(List<Binary> segments) {
+        Charset charset = null;
+        for (Binary segment : segments) {
+            if (segment.getCharset() == null) {
+                return null;
+            }
+            if (charset == null) {
+                charset = segment.getCharset();
+            } else if (!charset.equals(segment.getCharset())) {
+                return null;
+            }
+        }
+        return charset;
+    }
+
+    public List<Binary> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        for (Binary segment : segments) {
+            if (segment.isConsumable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasLength() throws IOException {
+        if (length != LENGTH_UNSPECIFIED) {
+            return true;
+        }
+        for (Binary segment : segments) {
+            if (!segment.hasLength()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected long provideLength() throws IOException {
+        long sum = 0;
+        for (Binary segment : segments) {
+            sum += segment.length();
+        }
+        return sum;
+    }
+
+    @Override
+    public byte[] asByteArray(boolean modifiable) throws IOException {
+        if (!hasLength()) {
+            InputStream in = asStream();
+            try {
+                return readBytesFromStream(in);
+            } finally {
+                in.close();
+            }
+        }
+
+        long length = length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Data is longer than maximal byte array size");
+        }
+
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        for (Binary segment : segments) {
+            offset += segment.toByteArray(bytes, offset);
+        }
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        List<ByteBuffer> buffers = new ArrayList<>(segments.size());
+        for (Binary segment : segments) {
+            ByteBuffer[] segmentBuffers = segment.getUnderlyingByteBuffers();
+            if (segmentBuffers == null) {
+                return null;
+            }
+            Collections.addAll(buffers, segmentBuffers);
+        }
+        return buffers.toArray(new ByteBuffer[buffers.size()]);
+    }
+
+    @Override
+    public InputStream asStream() throws IOException {
+        return new CompositeInputStream();
+    }
+
+    /**
+     * Reads from the segment containing given position. Read does not cross segment boundary.
+     */
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (isConsumable()) {
+            return super.read(position, dst);
+        }
+
+        for (Binary segment : segments) {
+            long segmentLength = segment.length();
+            if (position < segmentLength) {
+                return segment.read(position, dst);
+            }
+            position -= segmentLength;
+        }
+        return dst.hasRemaining() ? EOF : 0;
+    }
+
+    @Override
+    public void to(OutputStream out) throws IOException {
+        for (Binary segment : segments) {
+            segment.to(out);
+        }
+    }
+
+    /**
+     * Writes segments in order. Consecutive segments kept in memory are written using gathering writes.
+     */
+    @Override
+    public void to(WritableByteChannel channel) throws IOException {
+        if (!(channel instanceof GatheringByteChannel)) {
+            for (Binary segment : segments) {
+                segment.to(channel);
+            }
+            return;
+        }
+
+        GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+        List<ByteBuffer> pending = new ArrayList<>();
+        for (Binary segment : segments) {
+            ByteBuffer[] buffers = segment.getUnderlyingByteBuffers();
+            if (buffers != null) {
+                Collections.addAll(pending, buffers);
+            } else {
+                writeFully(gatheringChannel, pending);
+                pending.clear();
+                segment.to(channel);
+            }
+        }
+        writeFully(gatheringChannel, pending);
+    }
+
+    private static void writeFully(GatheringByteChannel channel, List<ByteBuffer> buffers) throws IOException {
+        if (buffers.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer[] array = buffers.toArray(new ByteBuffer[buffers.size()]);
+        int index = 0;
+        while (index < array.length) {
+            channel.write(array, index, array.length - index);
+            while (index < array.length && !array[index].hasRemaining()) {
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Splits subrange across segment boundaries. Resulting Binary shares segments' data.
+     */
+    @Override
+    public Binary subrange(long offset, long length) throws IOException {
+        if (!hasLength()) {
+            return super.subrange(offset, length);
+        }
+
+        long total = length();
+        if (offset < 0 || offset > total) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (length < 0) {
+            length = total - offset;
+        }
+        if (offset + length > total) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        List<Binary> parts = new ArrayList<>();
+        long segmentStart = 0;
+        long end = offset + length;
+        for (Binary segment : segments) {
+            long segmentLength = segment.length();
+            long segmentEnd = segmentStart + segmentLength;
+            if (segmentEnd > offset && segmentStart < end) {
+                long partOffset = Math.max(offset, segmentStart) - segmentStart;
+                long partEnd = Math.min(end, segmentEnd) - segmentStart;
+                if (segment.isConsumable() && partOffset == 0 && partEnd == segmentLength) {
+                    parts.add(segment);
+                } else {
+                    parts.add(segment.subrange(partOffset, partEnd - partOffset));
+                }
+            }
+            if (segmentEnd >= end) {
+                break;
+            }
+            segmentStart = segmentEnd;
+        }
+
+        if (parts.isEmpty()) {
+            return Binary.empty(getCharset());
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return new CompositeBinary(parts);
+    }
+
+    /**
+     * Closes all segments
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (Binary segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (hasCharset()) {
+            return super.toString();
+        }
+        return "(segments[" + segments.size() + "])";
+    }
+
+
+    private class CompositeInputStream extends InputStream {
+        private int index = 0;
+        private InputStream current;
+
+        private boolean nextStream() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+            if (index >= segments.size()) {
+                return false;
+            }
+            current = segments.get(index++).asStream();
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (current == null && !nextStream()) {
+                return EOF;
+            }
+            while (true) {
+                int b = current.read();
+                if (b != EOF) {
+                    return b;
+                }
+                if (!nextStream()) {
+                    return EOF;
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (current == null && !nextStream()) {
+                return EOF;
+            }
+            while (true) {
+                int readlen = current.read(b, off, len);
+                if (readlen != EOF) {
+                    return readlen;
+                }
+                if (!nextStream()) {
+                    return EOF;
+                }
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && (current != null || nextStream())) {
+                long count = current.skip(n - skipped);
+                if (count > 0) {
+                    skipped += count;
+                } else if (current.read() != EOF) {
+                    skipped++;
+                } else if (!nextStream()) {
+                    break;
+                }
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current != null ? current.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+            index = segments.size();
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package com.sproutigy.commons.binary.impl;
 
-import com.sproutigy.commons.binary.Binary;
-
 import java.io.*;
-import java.nio.channels.Channels;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -18,6 +17,13 @@ public class FileBinary extends AbstractStreamableBinary {
 
     private Path path;
 
+    /**
+     * Shared channel for positional reads and transfers, kept only when opened explicitly by {@link #open()}
+     */
+    private FileChannel channel;
+    private Object identity;
+    private FileBlockCache blockCache = FileBlockCache.getDefault();
+
 
     public FileBinary(String path) {
         this(path, null);
@@ -68,17 +74,35 @@ public class FileBinary extends AbstractStreamableBinary {
         return path;
     }
 
+    public FileBlockCache getBlockCache() {
+        return blockCache;
+    }
+
+    /**
+     * Sets cache of file blocks used by random reads of this Binary and its subranges, null disables caching
+     */
+    public FileBinary setBlockCache(FileBlockCache blockCache) {
+        this.blockCache = blockCache;
+        return this;
+    }
+
+    /**
+     * Returns lazy view over the range of the file. Data is not read until the view is consumed.
+     */
     @Override
-    public Binary subrange(long offset, long length) throws IOException {
-        FileChannel fileChannel = FileChannel.open(getPath(), StandardOpenOption.READ);
-        try {
-            fileChannel.position(offset);
-            try(InputStream inputStream = Channels.newInputStream(fileChannel)) {
-                return Binary.from(readBytesFromStream(inputStream, length));
-            }
-        } finally {
-            fileChannel.close();
+    public FileRangeBinary subrange(long offset, long length) throws IOException {
+        long size = length();
+        if (offset < 0 || offset > size) {
+            throw new IndexOutOfBoundsException("Out of data range");
         }
+        if (length < 0) {
+            length = size - offset;
+        }
+        if (offset + length > size) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        return new FileRangeBinary(this, offset, length);
     }
 
     @Override
@@ -114,12 +138,152 @@ public class FileBinary extends AbstractStreamableBinary {
         return Files.newInputStream(path);
     }
 
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        try (Access access = new Access()) {
+            return access.read(position, dst);
+        }
+    }
+
+    /**
+     * Transfers whole file with FileChannel.transferTo(), so data does not pass through user space
+     */
+    @Override
+    public void to(WritableByteChannel channel) throws IOException {
+        FileChannel source = acquireChannel();
+        try {
+            FileRangeBinary.transferFully(source, 0, source.size(), channel);
+        } finally {
+            releaseChannel(source);
+        }
+    }
+
+    @Override
+    protected boolean isTransferable() {
+        return true;
+    }
+
+    @Override
+    protected long transferTo(long position, long count, WritableByteChannel channel) throws IOException {
+        FileChannel source = acquireChannel();
+        try {
+            return FileRangeBinary.transferOnce(source, position, count, channel);
+        } finally {
+            releaseChannel(source);
+        }
+    }
+
+    /**
+     * Keeps a channel of the file open for positional reads and transfers of this Binary and its subranges,
+     * until {@link #close()} is called. Otherwise every such operation opens and closes the file on its own,
+     * so Binary holds no resources.
+     */
+    public synchronized FileBinary open() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            identity = null;
+        }
+        return this;
+    }
+
+    public synchronized boolean isOpen() {
+        return channel != null && channel.isOpen();
+    }
+
+    /**
+     * Provides channel for a single operation, which has to be passed to {@link #releaseChannel(FileChannel)} afterwards
+     */
+    synchronized FileChannel acquireChannel() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            return channel;
+        }
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Closes channel of a single operation, unless it is the shared one
+     */
+    synchronized void releaseChannel(FileChannel channel) throws IOException {
+        if (channel != this.channel) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Identity of the file is taken once per shared channel or on every call when not opened
+     */
+    private synchronized Object identity() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            return FileBlockCache.identify(path);
+        }
+        if (identity == null) {
+            identity = FileBlockCache.identify(path);
+        }
+        return identity;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            identity = null;
+        }
+    }
+
     @Override
     public String toString() {
         return getPathString();
     }
 
 
+    /**
+     * Positional reads of a single operation or stream. Channel is acquired on first block cache miss
+     * or uncached read and released on close, identity of the file is taken once.
+     */
+    class Access implements Closeable {
+        private FileChannel channel;
+        private Object identity;
+
+        FileChannel channel() throws IOException {
+            if (channel == null) {
+                channel = acquireChannel();
+            }
+            return channel;
+        }
+
+        Object identity() throws IOException {
+            if (identity == null) {
+                identity = FileBinary.this.identity();
+            }
+            return identity;
+        }
+
+        int read(long position, ByteBuffer dst) throws IOException {
+            FileBlockCache blockCache = FileBinary.this.blockCache;
+            if (blockCache != null) {
+                return blockCache.read(this, position, dst);
+            }
+            return channel().read(dst, position);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                releaseChannel(channel);
+                channel = null;
+            }
+        }
+    }
+
+
     private static long fetchFileSize(Path path) {
         try {
             return Files.size(path);
@@ -0,0 +1,287 @@
+package com.sproutigy.commons.binary.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of fixed-size file blocks for random reads, shared by FileBinary instances.
+ * Blocks are identified by file path, file key and last modification time, so modified or replaced files
+ * are not served from stale blocks. Total size of cached blocks is limited, least recently used blocks
+ * are evicted using CLOCK algorithm.
+ * Cache is disabled by default and may be enabled globally with {@link #setDefault(FileBlockCache)}
+ * or for single Binary with {@link FileBinary#setBlockCache(FileBlockCache)}.
+ *
+ * @author LukeAheadNET
+ */
+public class FileBlockCache {
+
+    public static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+
+    private static volatile FileBlockCache defaultCache;
+
+    private final int blockSize;
+    private final Map<BlockKey, Block> blocks;
+    private final Block[] clock;
+    private int hand;
+    private int count;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+
+    public FileBlockCache(long maxSizeBytes) {
+        this(maxSizeBytes, DEFAULT_BLOCK_SIZE);
+    }
+
+    public FileBlockCache(long maxSizeBytes, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize <= 0");
+        }
+        long capacity = maxSizeBytes / blockSize;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("maxSizeBytes is lower than blockSize");
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many blocks");
+        }
+
+        this.blockSize = blockSize;
+        this.clock = new Block[(int) capacity];
+        this.blocks = new HashMap<>();
+    }
+
+    /**
+     * @return cache used by newly created FileBinary instances or null when disabled
+     */
+    public static FileBlockCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Sets cache used by newly created FileBinary instances, null disables caching
+     */
+    public static void setDefault(FileBlockCache cache) {
+        defaultCache = cache;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public long getMaxSizeBytes() {
+        return (long) clock.length * blockSize;
+    }
+
+    public synchronized int getBlockCount() {
+        return count;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Removes all cached blocks
+     */
+    public synchronized void clear() {
+        blocks.clear();
+        for (int i = 0; i < clock.length; i++) {
+            clock[i] = null;
+        }
+        hand = 0;
+        count = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FileBlockCache{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                ", blocks=" + getBlockCount() +
+                '}';
+    }
+
+    /**
+     * Identifies current version of the file
+     */
+    static Object identify(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileIdentity(path.toAbsolutePath().toString(), attributes.fileKey(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Reads data at given file position through the cache, file is accessed only when a block is missing
+     *
+     * @return number of read bytes or -1 when position is at the end of file
+     */
+    int read(FileBinary.Access access, long position, ByteBuffer dst) throws IOException {
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        Object file = access.identity();
+
+        int read = 0;
+        while (dst.hasRemaining()) {
+            int blockOffset = (int) (position % blockSize);
+            Block block = block(access, file, position / blockSize);
+            int len = Math.min(block.length - blockOffset, dst.remaining());
+            if (len <= 0) {
+                break;
+            }
+            dst.put(block.data, blockOffset, len);
+            read += len;
+            position += len;
+            if (block.length < blockSize) {
+                break;
+            }
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    private Block block(FileBinary.Access access, Object file, long index) throws IOException {
+        BlockKey key = new BlockKey(file, index);
+        synchronized (this) {
+            Block block = blocks.get(key);
+            if (block != null) {
+                block.referenced = true;
+                hits.incrementAndGet();
+                return block;
+            }
+        }
+
+        misses.incrementAndGet();
+        Block loaded = load(access.channel(), key);
+        synchronized (this) {
+            Block block = blocks.get(key);
+            if (block != null) {
+                return block;
+            }
+            insert(loaded);
+            return loaded;
+        }
+    }
+
+    private Block load(FileChannel channel, BlockKey key) throws IOException {
+        byte[] data = new byte[blockSize];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = key.index * blockSize;
+        while (buffer.hasRemaining()) {
+            int readlen = channel.read(buffer, position + buffer.position());
+            if (readlen < 0) {
+                break;
+            }
+        }
+        return new Block(key, data, buffer.position());
+    }
+
+    private void insert(Block block) {
+        if (count == clock.length) {
+            while (clock[hand].referenced) {
+                clock[hand].referenced = false;
+                hand = (hand + 1) % clock.length;
+            }
+            blocks.remove(clock[hand].key);
+            evictions.incrementAndGet();
+            count--;
+        } else {
+            while (clock[hand] != null) {
+                hand = (hand + 1) % clock.length;
+            }
+        }
+
+        clock[hand] = block;
+        blocks.put(block.key, block);
+        hand = (hand + 1) % clock.length;
+        count++;
+    }
+
+
+    private static final class Block {
+        final BlockKey key;
+        final byte[] data;
+        final int length;
+        boolean referenced;
+
+        Block(BlockKey key, byte[] data, int length) {
+            this.key = key;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    private static final class BlockKey {
+        final Object file;
+        final long index;
+
+        BlockKey(Object file, long index) {
+            this.file = file;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof BlockKey)) return false;
+            BlockKey that = (BlockKey) other;
+            return index == that.index && file.equals(that.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + (int) (index ^ (index >>> 32));
+        }
+    }
+
+    private static final class FileIdentity {
+        final String path;
+        final Object fileKey;
+        final long lastModified;
+
+        FileIdentity(String path, Object fileKey, long lastModified) {
+            this.path = path;
+            this.fileKey = fileKey;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof FileIdentity)) return false;
+            FileIdentity that = (FileIdentity) other;
+            return lastModified == that.lastModified && path.equals(that.path)
+                    && (fileKey == null ? that.fileKey == null : fileKey.equals(that.fileKey));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + (fileKey != null ? fileKey.hashCode() : 0);
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            return result;
+        }
+    }
+}
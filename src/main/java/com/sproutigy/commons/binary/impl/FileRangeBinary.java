@@ -0,0 +1,325 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.BufferAllocator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lazy view over a range of a file.
+ * Only path, offset and length are remembered - file is opened when data is consumed
+ * and read with positional reads, so no data is copied when range is created.
+ * Ranges of FileBinary read through its block cache and its channel when it has been opened.
+ *
+ * @author LukeAheadNET
+ */
+public class FileRangeBinary extends AbstractStreamableBinary {
+
+    private static final int TRANSFER_CHUNK_SIZE = 8 * 1024;
+
+    private Path path;
+    private long offset;
+    private FileBinary file;
+
+
+    public FileRangeBinary(Path path, long offset, long length) {
+        this(path, offset, length, null);
+    }
+
+    public FileRangeBinary(Path path, long offset, long length, Charset charset) {
+        super(length);
+        if (offset < 0 || length < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        this.path = path;
+        this.offset = offset;
+        setCharset(charset);
+    }
+
+    public FileRangeBinary(FileBinary file, long offset, long length) {
+        this(file.getPath(), offset, length, file.getCharset());
+        this.file = file;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        return false;
+    }
+
+    @Override
+    public byte[] asByteArray(boolean modifiable) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Range is longer than maximal byte array size");
+        }
+        if (length == 0) {
+            return EMPTY_BYTE_ARRAY;
+        }
+
+        byte[] bytes = new byte[(int) length];
+        if (file != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            try (FileBinary.Access access = file.new Access()) {
+                while (buffer.hasRemaining()) {
+                    if (access.read(offset + buffer.position(), buffer) == EOF) {
+                        throw new EOFException("File is shorter than requested range");
+                    }
+                }
+            }
+            return bytes;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readFully(channel, ByteBuffer.wrap(bytes), offset);
+        }
+        return bytes;
+    }
+
+    @Override
+    public InputStream asStream() throws IOException {
+        if (file != null) {
+            return new FileRangeInputStream(null, file.new Access());
+        }
+        return new FileRangeInputStream(FileChannel.open(path, StandardOpenOption.READ), null);
+    }
+
+    @Override
+    public void to(WritableByteChannel channel) throws IOException {
+        if (file != null) {
+            FileChannel source = file.acquireChannel();
+            try {
+                transferFully(source, offset, length, channel);
+            } finally {
+                file.releaseChannel(source);
+            }
+            return;
+        }
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            transferFully(source, offset, length, channel);
+        }
+    }
+
+    @Override
+    public FileRangeBinary subrange(long offset, long length) {
+        if (offset < 0 || offset > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (length < 0) {
+            length = this.length - offset;
+        }
+        if (offset + length > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        if (file != null) {
+            return new FileRangeBinary(file, this.offset + offset, length);
+        }
+        return new FileRangeBinary(path, this.offset + offset, length, getCharset());
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= length) {
+            return EOF;
+        }
+
+        int limit = dst.limit();
+        if (dst.remaining() > length - position) {
+            dst.limit(dst.position() + (int) (length - position));
+        }
+        try {
+            if (file != null) {
+                return file.read(offset + position, dst);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.read(dst, offset + position);
+            }
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    protected boolean isTransferable() {
+        return true;
+    }
+
+    @Override
+    protected long transferTo(long position, long count, WritableByteChannel channel) throws IOException {
+        if (position < 0 || count < 0 || position + count > length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (file != null) {
+            FileChannel source = file.acquireChannel();
+            try {
+                return transferOnce(source, offset + position, count, channel);
+            } finally {
+                file.releaseChannel(source);
+            }
+        }
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            return transferOnce(source, offset + position, count, channel);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path.toString() + "[" + offset + ".." + (offset + length) + "]";
+    }
+
+    /**
+     * Transfers range of the file with FileChannel.transferTo(), which lets operating system copy data
+     * without passing it through user space (e.g. with sendfile). Position of the channel is not changed.
+     * When transferTo() makes no progress, a chunk is copied through a pooled buffer instead of retrying.
+     * Throws EOFException when file ends before the range.
+     */
+    static void transferFully(FileChannel source, long position, long count, WritableByteChannel target) throws IOException {
+        while (count > 0) {
+            long transferred = source.transferTo(position, count, target);
+            if (transferred <= 0) {
+                if (position >= source.size()) {
+                    throw new EOFException("File is shorter than requested range");
+                }
+                transferred = copyChunk(source, position, count, target);
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private static int copyChunk(FileChannel source, long position, long count, WritableByteChannel target) throws IOException {
+        BufferAllocator allocator = BufferAllocator.getDefault();
+        ByteBuffer chunk = allocator.allocate((int) Math.min(count, TRANSFER_CHUNK_SIZE));
+        try {
+            int readlen = source.read(chunk, position);
+            if (readlen == EOF) {
+                throw new EOFException("File is shorter than requested range");
+            }
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                target.write(chunk);
+            }
+            return readlen;
+        } finally {
+            allocator.release(chunk);
+        }
+    }
+
+    /**
+     * Single transferTo() attempt, which may write nothing to non-blocking channel
+     */
+    static long transferOnce(FileChannel source, long position, long count, WritableByteChannel target) throws IOException {
+        long transferred = source.transferTo(position, count, target);
+        if (transferred <= 0 && count > 0 && position >= source.size()) {
+            throw new EOFException("File is shorter than requested range");
+        }
+        return Math.max(0, transferred);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int readlen = channel.read(target, position);
+            if (readlen == EOF) {
+                throw new EOFException("File is shorter than requested range");
+            }
+            position += readlen;
+        }
+    }
+
+
+    /**
+     * Reads with own channel or through access to the FileBinary kept for the whole stream
+     */
+    private class FileRangeInputStream extends InputStream {
+        private FileChannel channel;
+        private FileBinary.Access access;
+        private byte[] single = new byte[1];
+        private long position = 0;
+        private long mark = 0;
+
+        FileRangeInputStream(FileChannel channel, FileBinary.Access access) {
+            this.channel = channel;
+            this.access = access;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int readlen = read(single, 0, 1);
+            return readlen == EOF ? EOF : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = length - position;
+            if (remaining <= 0) {
+                return EOF;
+            }
+            int count = (int) Math.min(len, remaining);
+            ByteBuffer target = ByteBuffer.wrap(b, off, count);
+            int readlen = channel != null ? channel.read(target, offset + position) : access.read(offset + position, target);
+            if (readlen > 0) {
+                position += readlen;
+            }
+            return readlen;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, length - position));
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+            if (access != null) {
+                access.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.sproutigy.commons.binary.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary backed by memory-mapped file.
+ * Files bigger than single mapping limit are split into multiple mapped regions.
+ * Subranges are views over the same regions, so no data is copied to the heap.
+ *
+ * @author LukeAheadNET
+ */
+public class MappedFileBinary extends AbstractBytesBinary {
+
+    public static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    private Path path;
+    private ByteBuffer[] regions;
+    private int regionSize;
+    private long offset;
+
+
+    public MappedFileBinary(Path path) throws IOException {
+        this(path, null);
+    }
+
+    public MappedFileBinary(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileBinary(Path path, Charset charset, int regionSize) throws IOException {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("regionSize <= 0");
+        }
+
+        this.path = path;
+        this.regionSize = regionSize;
+        this.offset = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            this.regions = mapRegions(channel, size, regionSize);
+            this.length = size;
+        }
+        setCharset(charset);
+    }
+
+    private MappedFileBinary(MappedFileBinary parent, long offset, long length) {
+        super(length);
+        this.path = parent.path;
+        this.regions = parent.regions;
+        this.regionSize = parent.regionSize;
+        this.offset = offset;
+        setCharset(parent.getCharset());
+    }
+
+    private MappedFileBinary(Path path, ByteBuffer[] regions, int regionSize, long length, Charset charset) {
+        super(length);
+        this.path = path;
+        this.regions = regions;
+        this.regionSize = regionSize;
+        this.offset = 0;
+        setCharset(charset);
+    }
+
+    private static ByteBuffer[] mapRegions(FileChannel channel, long size, int regionSize) throws IOException {
+        return mapRegions(channel, size, regionSize, new ByteBuffer[0]);
+    }
+
+    /**
+     * Maps regions of the file, reusing given ones that are complete
+     */
+    private static ByteBuffer[] mapRegions(FileChannel channel, long size, int regionSize, ByteBuffer[] mapped) throws IOException {
+        int count = (int) ((size + regionSize - 1) / regionSize);
+        ByteBuffer[] regions = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            if (i < mapped.length && mapped[i].capacity() == regionSize) {
+                regions[i] = mapped[i];
+                continue;
+            }
+            long position = (long) i * regionSize;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+        }
+        return regions;
+    }
+
+    /**
+     * Provides Binary of the whole file after it has grown. Regions that were completely mapped are shared,
+     * so only the grown part of the file is mapped. This Binary and its subranges stay valid.
+     *
+     * @return this when file has not grown, otherwise new Binary of the whole file
+     */
+    public MappedFileBinary remap() throws IOException {
+        if (offset != 0) {
+            throw new IllegalStateException("Only Binary of the whole file can be remapped");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= length) {
+                return this;
+            }
+            return new MappedFileBinary(path, mapRegions(channel, size, regionSize, regions), regionSize, size, getCharset());
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        return false;
+    }
+
+    @Override
+    public byte[] asByteArray(boolean modifiable) {
+        if (length > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Length higher than Integer.MAX_VALUE");
+        }
+
+        byte[] bytes = new byte[(int) length];
+        copyTo(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer(boolean modifiable) {
+        if (!modifiable) {
+            int first = regionIndex(offset);
+            if (length == 0 || first == regionIndex(offset + length - 1)) {
+                return region(first, regionPosition(offset), (int) length);
+            }
+        }
+        return super.asByteBuffer(modifiable);
+    }
+
+    @Override
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        if (length == 0) {
+            return new ByteBuffer[0];
+        }
+        int first = regionIndex(offset);
+        int last = regionIndex(offset + length - 1);
+        ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+        long position = offset;
+        long remaining = length;
+        for (int i = 0; i < buffers.length; i++) {
+            int index = regionPosition(position);
+            int len = (int) Math.min(remaining, regions[first + i].limit() - index);
+            buffers[i] = region(first + i, index, len);
+            position += len;
+            remaining -= len;
+        }
+        return buffers;
+    }
+
+    @Override
+    public InputStream asStream() {
+        return new MappedInputStream();
+    }
+
+    @Override
+    public MappedFileBinary subrange(long offset, long length) {
+        if (offset < 0 || offset > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (length < 0) {
+            length = this.length - offset;
+        }
+        if (offset + length > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        return new MappedFileBinary(this, this.offset + offset, length);
+    }
+
+    @Override
+    public String toString() {
+        if (hasCharset()) {
+            return asString(getCharset());
+        }
+        return path.toString();
+    }
+
+    @Override
+    public void close() {
+        regions = new ByteBuffer[0];
+        offset = 0;
+        length = 0;
+    }
+
+    @Override
+    public byte byteAt(long position) {
+        checkRange(position, 1);
+        return get(position);
+    }
+
+    @Override
+    public short getShort(long position, ByteOrder order) {
+        checkRange(position, Short.SIZE / Byte.SIZE);
+        ByteBuffer region = singleRegion(position, Short.SIZE / Byte.SIZE);
+        if (region != null) {
+            short value = region.getShort(regionPosition(offset + position));
+            return region.order() == order ? value : Short.reverseBytes(value);
+        }
+        return (short) compose(position, Short.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public int getInt(long position, ByteOrder order) {
+        checkRange(position, Integer.SIZE / Byte.SIZE);
+        ByteBuffer region = singleRegion(position, Integer.SIZE / Byte.SIZE);
+        if (region != null) {
+            int value = region.getInt(regionPosition(offset + position));
+            return region.order() == order ? value : Integer.reverseBytes(value);
+        }
+        return (int) compose(position, Integer.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public long getLong(long position, ByteOrder order) {
+        checkRange(position, Long.SIZE / Byte.SIZE);
+        ByteBuffer region = singleRegion(position, Long.SIZE / Byte.SIZE);
+        if (region != null) {
+            long value = region.getLong(regionPosition(offset + position));
+            return region.order() == order ? value : Long.reverseBytes(value);
+        }
+        return compose(position, Long.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= length) {
+            return EOF;
+        }
+
+        long remaining = Math.min(dst.remaining(), length - position);
+        int count = (int) remaining;
+        long absolute = offset + position;
+        while (remaining > 0) {
+            int index = regionPosition(absolute);
+            int len = (int) Math.min(remaining, regions[regionIndex(absolute)].limit() - index);
+            dst.put(region(regionIndex(absolute), index, len));
+            absolute += len;
+            remaining -= len;
+        }
+        return count;
+    }
+
+    private void checkRange(long position, int size) {
+        if (position < 0 || position + size > length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+    }
+
+    /**
+     * @return region containing all requested bytes or null when they cross region boundary
+     */
+    private ByteBuffer singleRegion(long position, int size) {
+        long absolute = offset + position;
+        int index = regionIndex(absolute);
+        if (index != regionIndex(absolute + size - 1)) {
+            return null;
+        }
+        return regions[index];
+    }
+
+    private long compose(long position, int size, ByteOrder order) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int shift = order == ByteOrder.BIG_ENDIAN ? (size - 1 - i) * Byte.SIZE : i * Byte.SIZE;
+            value |= (get(position + i) & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    private byte get(long position) {
+        long absolute = offset + position;
+        return regions[regionIndex(absolute)].get(regionPosition(absolute));
+    }
+
+    private void copyTo(long position, byte[] target, int targetOffset, int len) {
+        long absolute = offset + position;
+        while (len > 0) {
+            int index = regionPosition(absolute);
+            ByteBuffer region = regions[regionIndex(absolute)];
+            int chunk = Math.min(len, region.limit() - index);
+            region(regionIndex(absolute), index, chunk).get(target, targetOffset, chunk);
+            absolute += chunk;
+            targetOffset += chunk;
+            len -= chunk;
+        }
+    }
+
+    private ByteBuffer region(int regionIndex, int position, int length) {
+        if (regions.length == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        ByteBuffer buffer = regions[regionIndex].duplicate();
+        buffer.limit(position + length).position(position);
+        return buffer.slice();
+    }
+
+    private int regionIndex(long absolutePosition) {
+        return (int) (absolutePosition / regionSize);
+    }
+
+    private int regionPosition(long absolutePosition) {
+        return (int) (absolutePosition % regionSize);
+    }
+
+
+    private class MappedInputStream extends InputStream {
+        private long position = 0;
+        private long mark = 0;
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return EOF;
+            }
+            return get(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            long remaining = length - position;
+            if (remaining <= 0) {
+                return EOF;
+            }
+            int count = (int) Math.min(len, remaining);
+            copyTo(position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long count = Math.max(0, Math.min(n, length - position));
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+    }
+}
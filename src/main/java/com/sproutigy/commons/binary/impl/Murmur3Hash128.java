@@ -0,0 +1,124 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.Binary;
+import com.sproutigy.commons.binary.Hasher;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of MurmurHash3 (x64, 128-bit variant).
+ *
+ * @author LukeAheadNET
+ */
+public class Murmur3Hash128 implements Hasher {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final int BLOCK_SIZE = 16;
+
+    private long h1;
+    private long h2;
+    private long totalLength;
+    private final ByteBuffer memory = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+
+    public Murmur3Hash128(int seed) {
+        this.h1 = seed & 0xFFFFFFFFL;
+        this.h2 = seed & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        ByteBuffer input = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = input.position();
+        int limit = input.limit();
+        totalLength += limit - position;
+
+        if (memory.position() > 0) {
+            int fill = Math.min(memory.remaining(), limit - position);
+            input.limit(position + fill);
+            memory.put(input);
+            input.limit(limit);
+            position += fill;
+            if (memory.hasRemaining()) {
+                data.position(limit);
+                return;
+            }
+            processBlock(memory.getLong(0), memory.getLong(8));
+            memory.clear();
+        }
+
+        while (position + BLOCK_SIZE <= limit) {
+            processBlock(input.getLong(position), input.getLong(position + 8));
+            position += BLOCK_SIZE;
+        }
+
+        input.position(position);
+        memory.put(input);
+        data.position(limit);
+    }
+
+    private void processBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    @Override
+    public Binary hash() {
+        long k1 = 0;
+        long k2 = 0;
+        int tail = memory.position();
+        for (int i = tail - 1; i >= 8; i--) {
+            k2 = (k2 << 8) | (memory.get(i) & 0xFF);
+        }
+        for (int i = Math.min(tail, 8) - 1; i >= 0; i--) {
+            k1 = (k1 << 8) | (memory.get(i) & 0xFF);
+        }
+
+        long r1 = h1 ^ mixK1(k1);
+        long r2 = h2 ^ mixK2(k2);
+
+        r1 ^= totalLength;
+        r2 ^= totalLength;
+        r1 += r2;
+        r2 += r1;
+        r1 = fmix(r1);
+        r2 = fmix(r2);
+        r1 += r2;
+        r2 += r1;
+
+        ByteBuffer result = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        result.putLong(r1).putLong(r2);
+        return Binary.from(result.array());
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,540 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.Binary;
+import com.sproutigy.commons.binary.BufferAllocator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary kept in direct memory, outside of the Java heap, in fixed-size slabs taken from a BufferAllocator.
+ * Memory is reference counted: it is returned to the allocator deterministically when last reference is released,
+ * so {@link #retain()} has to be called before sharing Binary with another owner, e.g. another thread.
+ * Subranges are views over the same slabs that do not hold own references, so they are valid only as long as
+ * the source memory is retained, unless created by {@link #retainedSubrange(long, long)}.
+ * Accessing released memory throws IllegalStateException.
+ * Leak detection records allocation traces of memory that has not been released yet, see {@link #setLeakDetection(boolean)}.
+ *
+ * @author LukeAheadNET
+ */
+public class OffHeapBinary extends AbstractBytesBinary {
+
+    public static final int DEFAULT_SLAB_SIZE = PooledBufferAllocator.DEFAULT_MAX_SIZE;
+
+    private static final int STAGING_SIZE = 8 * 1024;
+
+    private static volatile boolean leakDetection;
+    private static final Set<Memory> tracked = Collections.newSetFromMap(new ConcurrentHashMap<Memory, Boolean>());
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+
+    private final Memory memory;
+    private final long offset;
+    private final AtomicInteger ownReference;
+
+
+    private OffHeapBinary(Memory memory, long offset, long length, boolean ownReference) {
+        super(length);
+        this.memory = memory;
+        this.offset = offset;
+        this.ownReference = new AtomicInteger(ownReference ? 1 : 0);
+    }
+
+    /**
+     * Copies data to direct memory taken from the default allocator
+     */
+    public static OffHeapBinary copyOf(Binary data) throws IOException {
+        return copyOf(data, BufferAllocator.getDefault());
+    }
+
+    public static OffHeapBinary copyOf(Binary data, BufferAllocator allocator) throws IOException {
+        return copyOf(data, allocator, DEFAULT_SLAB_SIZE);
+    }
+
+    public static OffHeapBinary copyOf(Binary data, BufferAllocator allocator, int slabSize) throws IOException {
+        if (allocator == null) throw new NullPointerException("allocator == null");
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize <= 0");
+        }
+
+        SlabWriter writer = new SlabWriter(allocator, slabSize, data.hasLength() ? data.length() : LENGTH_UNSPECIFIED);
+        try {
+            ByteBuffer[] buffers = data.getUnderlyingByteBuffers();
+            if (buffers != null) {
+                for (ByteBuffer buffer : buffers) {
+                    writer.put(buffer);
+                }
+            } else {
+                writer.put(data);
+            }
+            Memory memory = new Memory(writer.finish(), allocator, slabSize);
+            OffHeapBinary binary = new OffHeapBinary(memory, 0, memory.size, true);
+            binary.setCharset(data.getCharset());
+            return binary;
+        } catch (IOException | RuntimeException e) {
+            writer.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Enables recording of allocation traces of memory that is not released yet.
+     * Meant for tests, as it slows down allocation.
+     */
+    public static void setLeakDetection(boolean enabled) {
+        leakDetection = enabled;
+        if (!enabled) {
+            tracked.clear();
+        }
+    }
+
+    public static boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    /**
+     * @return allocation traces of memory allocated with leak detection enabled and not released yet
+     */
+    public static List<Throwable> getUnreleased() {
+        List<Throwable> traces = new ArrayList<>();
+        for (Memory memory : tracked) {
+            traces.add(memory.trace);
+        }
+        return traces;
+    }
+
+    /**
+     * @return number of bytes of slabs that are not released yet
+     */
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return number of references to underlying memory, 0 when it has been released
+     */
+    public int refCount() {
+        return memory.references.get();
+    }
+
+    public boolean isReleased() {
+        return refCount() == 0;
+    }
+
+    /**
+     * Adds reference to underlying memory, which has to be released by {@link #release()}
+     */
+    public OffHeapBinary retain() {
+        memory.retain();
+        return this;
+    }
+
+    /**
+     * Removes reference to underlying memory
+     *
+     * @return true when it was the last reference and memory has been returned to the allocator
+     */
+    public boolean release() {
+        return memory.release();
+    }
+
+    /**
+     * Creates view that holds own reference to underlying memory, released when view is closed
+     */
+    public OffHeapBinary retainedSubrange(long offset, long length) {
+        OffHeapBinary view = subrange(offset, length);
+        memory.retain();
+        view.ownReference.set(1);
+        return view;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        return false;
+    }
+
+    @Override
+    public byte[] asByteArray(boolean modifiable) {
+        if (length > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Length higher than Integer.MAX_VALUE");
+        }
+
+        byte[] bytes = new byte[(int) length];
+        ByteBuffer target = ByteBuffer.wrap(bytes);
+        for (ByteBuffer buffer : getUnderlyingByteBuffers()) {
+            target.put(buffer);
+        }
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer(boolean modifiable) {
+        if (!modifiable) {
+            ByteBuffer[] buffers = getUnderlyingByteBuffers();
+            if (buffers.length == 1) {
+                return buffers[0];
+            }
+        }
+        return super.asByteBuffer(modifiable);
+    }
+
+    /**
+     * Provides views of slabs, valid only as long as memory is not released
+     */
+    @Override
+    public ByteBuffer[] getUnderlyingByteBuffers() {
+        memory.ensureAccessible();
+        if (length == 0) {
+            return new ByteBuffer[0];
+        }
+        int first = slabIndex(offset);
+        int last = slabIndex(offset + length - 1);
+        ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+        long position = offset;
+        long remaining = length;
+        for (int i = 0; i < buffers.length; i++) {
+            int index = slabPosition(position);
+            int len = (int) Math.min(remaining, memory.slabs[first + i].limit() - index);
+            buffers[i] = slab(first + i, index, len);
+            position += len;
+            remaining -= len;
+        }
+        return buffers;
+    }
+
+    @Override
+    public InputStream asStream() {
+        ByteBuffer[] buffers = getUnderlyingByteBuffers();
+        if (buffers.length == 1) {
+            return new ByteBufferInputStream(buffers[0]);
+        }
+        Vector<InputStream> streams = new Vector<>(buffers.length);
+        for (ByteBuffer buffer : buffers) {
+            streams.add(new ByteBufferInputStream(buffer));
+        }
+        return new SequenceInputStream(streams.elements());
+    }
+
+    /**
+     * Creates view over the same memory, which does not hold own reference
+     */
+    @Override
+    public OffHeapBinary subrange(long offset, long length) {
+        memory.ensureAccessible();
+        if (offset < 0 || offset > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (length < 0) {
+            length = this.length - offset;
+        }
+        if (offset + length > this.length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+
+        OffHeapBinary view = new OffHeapBinary(memory, this.offset + offset, length, false);
+        view.setCharset(getCharset());
+        return view;
+    }
+
+    @Override
+    public byte byteAt(long position) {
+        checkRange(position, 1);
+        return get(position);
+    }
+
+    @Override
+    public short getShort(long position, ByteOrder order) {
+        checkRange(position, Short.SIZE / Byte.SIZE);
+        ByteBuffer slab = singleSlab(position, Short.SIZE / Byte.SIZE);
+        if (slab != null) {
+            short value = slab.getShort(slabPosition(offset + position));
+            return slab.order() == order ? value : Short.reverseBytes(value);
+        }
+        return (short) compose(position, Short.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public int getInt(long position, ByteOrder order) {
+        checkRange(position, Integer.SIZE / Byte.SIZE);
+        ByteBuffer slab = singleSlab(position, Integer.SIZE / Byte.SIZE);
+        if (slab != null) {
+            int value = slab.getInt(slabPosition(offset + position));
+            return slab.order() == order ? value : Integer.reverseBytes(value);
+        }
+        return (int) compose(position, Integer.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public long getLong(long position, ByteOrder order) {
+        checkRange(position, Long.SIZE / Byte.SIZE);
+        ByteBuffer slab = singleSlab(position, Long.SIZE / Byte.SIZE);
+        if (slab != null) {
+            long value = slab.getLong(slabPosition(offset + position));
+            return slab.order() == order ? value : Long.reverseBytes(value);
+        }
+        return compose(position, Long.SIZE / Byte.SIZE, order);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+        memory.ensureAccessible();
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= length) {
+            return EOF;
+        }
+
+        long remaining = Math.min(dst.remaining(), length - position);
+        int count = (int) remaining;
+        long absolute = offset + position;
+        while (remaining > 0) {
+            int index = slabPosition(absolute);
+            int len = (int) Math.min(remaining, memory.slabs[slabIndex(absolute)].limit() - index);
+            dst.put(slab(slabIndex(absolute), index, len));
+            absolute += len;
+            remaining -= len;
+        }
+        return count;
+    }
+
+    /**
+     * Releases reference held by this Binary, if any. Closing more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (ownReference.compareAndSet(1, 0)) {
+            memory.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isReleased()) {
+            return "(off-heap, released)";
+        }
+        if (hasCharset()) {
+            return asString(getCharset());
+        }
+        return "(off-heap[" + length + "])";
+    }
+
+    private void checkRange(long position, int size) {
+        memory.ensureAccessible();
+        if (position < 0 || position + size > length) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+    }
+
+    /**
+     * @return slab containing all requested bytes or null when they cross slab boundary
+     */
+    private ByteBuffer singleSlab(long position, int size) {
+        long absolute = offset + position;
+        int index = slabIndex(absolute);
+        if (index != slabIndex(absolute + size - 1)) {
+            return null;
+        }
+        return memory.slabs[index];
+    }
+
+    private long compose(long position, int size, ByteOrder order) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int shift = order == ByteOrder.BIG_ENDIAN ? (size - 1 - i) * Byte.SIZE : i * Byte.SIZE;
+            value |= (get(position + i) & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    private byte get(long position) {
+        long absolute = offset + position;
+        return memory.slabs[slabIndex(absolute)].get(slabPosition(absolute));
+    }
+
+    private ByteBuffer slab(int slabIndex, int position, int length) {
+        ByteBuffer buffer = memory.slabs[slabIndex].duplicate();
+        buffer.limit(position + length).position(position);
+        return buffer.slice();
+    }
+
+    private int slabIndex(long absolutePosition) {
+        return (int) (absolutePosition / memory.slabSize);
+    }
+
+    private int slabPosition(long absolutePosition) {
+        return (int) (absolutePosition % memory.slabSize);
+    }
+
+
+    /**
+     * Slabs shared by Binary and its views, with reference count
+     */
+    private static final class Memory {
+        final ByteBuffer[] slabs;
+        final BufferAllocator allocator;
+        final int slabSize;
+        final long size;
+        final AtomicInteger references = new AtomicInteger(1);
+        final Throwable trace;
+
+        Memory(ByteBuffer[] slabs, BufferAllocator allocator, int slabSize) {
+            this.slabs = slabs;
+            this.allocator = allocator;
+            this.slabSize = slabSize;
+            long size = 0;
+            for (ByteBuffer slab : slabs) {
+                size += slab.limit();
+            }
+            this.size = size;
+            allocatedBytes.addAndGet(size);
+
+            if (leakDetection) {
+                trace = new Throwable("Off-heap memory of " + size + " bytes allocated here has not been released");
+                tracked.add(this);
+            } else {
+                trace = null;
+            }
+        }
+
+        void ensureAccessible() {
+            if (references.get() <= 0) {
+                throw new IllegalStateException("Off-heap memory already released");
+            }
+        }
+
+        void retain() {
+            while (true) {
+                int count = references.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("Off-heap memory already released");
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return;
+                }
+            }
+        }
+
+        boolean release() {
+            while (true) {
+                int count = references.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("Off-heap memory already released");
+                }
+                if (references.compareAndSet(count, count - 1)) {
+                    if (count > 1) {
+                        return false;
+                    }
+                    free();
+                    return true;
+                }
+            }
+        }
+
+        private void free() {
+            if (trace != null) {
+                tracked.remove(this);
+            }
+            allocatedBytes.addAndGet(-size);
+            for (int i = 0; i < slabs.length; i++) {
+                allocator.release(slabs[i]);
+                slabs[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Fills slabs of fixed size, all but the last one are full
+     */
+    private static final class SlabWriter {
+        private final BufferAllocator allocator;
+        private final int slabSize;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private long remaining;
+        private ByteBuffer current;
+
+        SlabWriter(BufferAllocator allocator, int slabSize, long length) {
+            this.allocator = allocator;
+            this.slabSize = slabSize;
+            this.remaining = length;
+        }
+
+        void put(ByteBuffer source) {
+            source = source.duplicate();
+            while (source.hasRemaining()) {
+                ByteBuffer target = next();
+                int len = Math.min(source.remaining(), target.remaining());
+                ByteBuffer part = source.duplicate();
+                part.limit(part.position() + len);
+                target.put(part);
+                source.position(source.position() + len);
+            }
+        }
+
+        void put(Binary data) throws IOException {
+            BufferAllocator stagingAllocator = BufferAllocator.getDefault();
+            ByteBuffer staging = stagingAllocator.allocate(STAGING_SIZE);
+            try (InputStream in = data.asStream()) {
+                int readlen;
+                while ((readlen = in.read(staging.array(), staging.arrayOffset(), staging.limit())) != EOF) {
+                    staging.limit(readlen);
+                    put(staging);
+                    staging.clear().limit(STAGING_SIZE);
+                }
+            } finally {
+                stagingAllocator.release(staging);
+            }
+        }
+
+        private ByteBuffer next() {
+            if (current == null || !current.hasRemaining()) {
+                int size = remaining <= 0 ? slabSize : (int) Math.min(remaining, slabSize);
+                current = allocator.allocateDirect(size);
+                slabs.add(current);
+                if (remaining > 0) {
+                    remaining = Math.max(0, remaining - size);
+                }
+            }
+            return current;
+        }
+
+        ByteBuffer[] finish() {
+            if (current != null) {
+                current.flip();
+                if (current.limit() < current.capacity() / 2) {
+                    //trim underused last slab of data of unknown length
+                    ByteBuffer trimmed = allocator.allocateDirect(Math.max(1, current.limit()));
+                    trimmed.put(current).flip();
+                    allocator.release(current);
+                    slabs.set(slabs.size() - 1, trimmed);
+                }
+                current = null;
+            }
+            for (ByteBuffer slab : slabs) {
+                slab.position(0);
+            }
+            return slabs.toArray(new ByteBuffer[slabs.size()]);
+        }
+
+        void release() {
+            for (ByteBuffer slab : slabs) {
+                allocator.release(slab);
+            }
+            slabs.clear();
+            current = null;
+        }
+    }
+}
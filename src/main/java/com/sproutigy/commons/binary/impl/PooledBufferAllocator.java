@@ -0,0 +1,235 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.BufferAllocator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffer allocator that reuses released buffers.
+ * Buffers are grouped in power-of-two size classes. Each thread keeps a small cache of its own,
+ * then buffers go to shared pools of limited size. Buffers bigger than maximal size class are not pooled.
+ *
+ * @author LukeAheadNET
+ */
+public class PooledBufferAllocator extends BufferAllocator {
+
+    public static final int DEFAULT_MIN_SIZE = 512;
+    public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_POOLED_PER_CLASS = 64;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+
+    private final int minSizeShift;
+    private final int maxSize;
+    private final int maxPooledPerClass;
+    private final int threadCacheSize;
+
+    private final Pool heap;
+    private final Pool direct;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong unpooled = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+
+    public PooledBufferAllocator() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_POOLED_PER_CLASS, DEFAULT_THREAD_CACHE_SIZE);
+    }
+
+    public PooledBufferAllocator(int minSize, int maxSize, int maxPooledPerClass, int threadCacheSize) {
+        if (minSize <= 0 || Integer.bitCount(minSize) != 1) {
+            throw new IllegalArgumentException("minSize has to be positive power of two");
+        }
+        if (maxSize < minSize || Integer.bitCount(maxSize) != 1) {
+            throw new IllegalArgumentException("maxSize has to be power of two not less than minSize");
+        }
+
+        this.minSizeShift = Integer.numberOfTrailingZeros(minSize);
+        this.maxSize = maxSize;
+        this.maxPooledPerClass = maxPooledPerClass;
+        this.threadCacheSize = threadCacheSize;
+
+        int classes = Integer.numberOfTrailingZeros(maxSize) - minSizeShift + 1;
+        this.heap = new Pool(classes, false);
+        this.direct = new Pool(classes, true);
+    }
+
+    @Override
+    public ByteBuffer allocate(int capacity) {
+        return heap.allocate(capacity);
+    }
+
+    @Override
+    public ByteBuffer allocateDirect(int capacity) {
+        return direct.allocate(capacity);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        released.incrementAndGet();
+        if (buffer.isDirect()) {
+            direct.release(buffer);
+        } else {
+            heap.release(buffer);
+        }
+    }
+
+    /**
+     * @return number of allocations served from the pool
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of allocations of poolable size that required new buffer
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of allocations too big to be pooled
+     */
+    public long getUnpooled() {
+        return unpooled.get();
+    }
+
+    public long getReleased() {
+        return released.get();
+    }
+
+    /**
+     * @return number of released buffers that were not pooled because pool was full or buffer was not poolable
+     */
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledBufferAllocator{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", unpooled=" + getUnpooled() +
+                ", released=" + getReleased() +
+                ", discarded=" + getDiscarded() +
+                '}';
+    }
+
+    private int sizeClass(int capacity) {
+        if (capacity <= (1 << minSizeShift)) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minSizeShift;
+    }
+
+
+    private class Pool {
+        private final boolean direct;
+        private final Queue<ByteBuffer>[] shared;
+        private final AtomicInteger[] sharedCounts;
+        private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+
+        Pool(final int classes, boolean direct) {
+            this.direct = direct;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Queue<ByteBuffer>[] shared = new Queue[classes];
+            this.shared = shared;
+            this.sharedCounts = new AtomicInteger[classes];
+            for (int i = 0; i < classes; i++) {
+                shared[i] = new ConcurrentLinkedQueue<>();
+                sharedCounts[i] = new AtomicInteger();
+            }
+            this.threadCaches = new ThreadLocal<ArrayDeque<ByteBuffer>[]>() {
+                @Override
+                protected ArrayDeque<ByteBuffer>[] initialValue() {
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    ArrayDeque<ByteBuffer>[] caches = new ArrayDeque[classes];
+                    for (int i = 0; i < classes; i++) {
+                        caches[i] = new ArrayDeque<>(threadCacheSize);
+                    }
+                    return caches;
+                }
+            };
+        }
+
+        ByteBuffer allocate(int capacity) {
+            if (capacity > maxSize) {
+                unpooled.incrementAndGet();
+                return newBuffer(capacity);
+            }
+
+            int sizeClass = sizeClass(capacity);
+            ByteBuffer buffer = threadCaches.get()[sizeClass].pollFirst();
+            if (buffer == null) {
+                buffer = shared[sizeClass].poll();
+                if (buffer != null) {
+                    sharedCounts[sizeClass].decrementAndGet();
+                }
+            }
+
+            if (buffer == null) {
+                misses.incrementAndGet();
+                buffer = newBuffer(1 << (sizeClass + minSizeShift));
+            } else {
+                hits.incrementAndGet();
+            }
+
+            buffer.clear();
+            buffer.limit(capacity);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return buffer;
+        }
+
+        void release(ByteBuffer buffer) {
+            int capacity = buffer.capacity();
+            if (capacity > maxSize || capacity < (1 << minSizeShift) || Integer.bitCount(capacity) != 1
+                    || buffer.isReadOnly() || (!direct && buffer.arrayOffset() != 0)) {
+                discard(buffer);
+                return;
+            }
+
+            int sizeClass = sizeClass(capacity);
+            ArrayDeque<ByteBuffer> cache = threadCaches.get()[sizeClass];
+            if (cache.size() < threadCacheSize) {
+                cache.addFirst(buffer);
+                return;
+            }
+
+            if (sharedCounts[sizeClass].incrementAndGet() <= maxPooledPerClass) {
+                shared[sizeClass].offer(buffer);
+            } else {
+                sharedCounts[sizeClass].decrementAndGet();
+                discard(buffer);
+            }
+        }
+
+        /**
+         * Discarded buffers are left to the garbage collector, as views of them may still be in use
+         */
+        private void discard(ByteBuffer buffer) {
+            discarded.incrementAndGet();
+        }
+
+        private ByteBuffer newBuffer(int capacity) {
+            return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+    }
+}
@@ -53,7 +53,19 @@ public class ReadableByteChannelBinary extends Binary {
     public void to(WritableByteChannel channel) throws IOException {
         if (buffered == null && this.channel instanceof FileChannel) {
             FileChannel sourceChannel = (FileChannel) this.channel;
-            sourceChannel.transferTo(sourceChannel.position(), sourceChannel.size() - sourceChannel.position(), channel);
+            if (offset == null) {
+                offset = sourceChannel.position();
+            }
+            long count = sourceChannel.size() - offset;
+            if (length != LENGTH_UNSPECIFIED) {
+                count = Math.min(count, length);
+            }
+            FileRangeBinary.transferFully(sourceChannel, offset, count, channel);
+            sourceChannel.position(offset + count);
+            return;
+        }
+        if (buffered == null && channel instanceof FileChannel) {
+            transferFrom(this.channel, (FileChannel) channel);
             return;
         }
 
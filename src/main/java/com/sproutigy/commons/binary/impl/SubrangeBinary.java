@@ -0,0 +1,186 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.Binary;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Lazy view over a range of non-consumable Binary.
+ * Source data is read only when the view is consumed, by skipping to the offset and reading up to the length.
+ *
+ * @author LukeAheadNET
+ */
+public class SubrangeBinary extends AbstractStreamableBinary {
+
+    private Binary source;
+    private long offset;
+
+
+    public SubrangeBinary(Binary source, long offset, long length) {
+        super(length);
+        if (source.isConsumable()) {
+            throw new IllegalArgumentException("Source binary is consumable");
+        }
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        this.source = source;
+        this.offset = offset;
+        setCharset(source.getCharset());
+    }
+
+    public Binary getSource() {
+        return source;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isConsumable() {
+        return false;
+    }
+
+    @Override
+    public boolean hasLength() throws IOException {
+        return length != LENGTH_UNSPECIFIED || source.hasLength();
+    }
+
+    @Override
+    protected long provideLength() throws IOException {
+        if (source.hasLength()) {
+            return Math.max(0, source.length() - offset);
+        }
+        return super.provideLength();
+    }
+
+    @Override
+    public InputStream asStream() throws IOException {
+        InputStream in = source.asStream();
+        try {
+            long remaining = offset;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() == EOF) {
+                        throw new IndexOutOfBoundsException("Out of data range");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+
+        if (length == LENGTH_UNSPECIFIED) {
+            return in;
+        }
+        return new BoundedInputStream(in, length);
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) {
+            throw new IndexOutOfBoundsException("Out of data range");
+        }
+        if (length == LENGTH_UNSPECIFIED) {
+            return source.read(offset + position, dst);
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+        if (position >= length) {
+            return EOF;
+        }
+
+        int limit = dst.limit();
+        if (dst.remaining() > length - position) {
+            dst.limit(dst.position() + (int) (length - position));
+        }
+        try {
+            return source.read(offset + position, dst);
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public Binary subrange(long offset, long length) throws IOException {
+        if (this.length != LENGTH_UNSPECIFIED) {
+            if (offset > this.length) {
+                throw new IndexOutOfBoundsException("Out of data range");
+            }
+            if (length < 0) {
+                length = this.length - offset;
+            } else if (offset + length > this.length) {
+                throw new IndexOutOfBoundsException("Out of data range");
+            }
+        }
+        return new SubrangeBinary(source, this.offset + offset, length);
+    }
+
+    @Override
+    public String toString() {
+        if (hasCharset()) {
+            return super.toString();
+        }
+        return source.toString() + "[" + offset + "+" + length + "]";
+    }
+
+
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return EOF;
+            }
+            int b = super.read();
+            if (b != EOF) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return len == 0 ? 0 : EOF;
+            }
+            int readlen = super.read(b, off, (int) Math.min(len, remaining));
+            if (readlen > 0) {
+                remaining -= readlen;
+            }
+            return readlen;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -30,17 +30,20 @@ public class TempFileBinary extends FileBinary {
 
     @Override
     public void close() throws IOException {
-        if (deleteOnClose) {
-            try {
-                File f = getFile();
-                if (f != null && f.exists()) {
-                    if (!f.delete()) {
-                        f.deleteOnExit();
+        try {
+            super.close();
+        } finally {
+            if (deleteOnClose) {
+                try {
+                    File f = getFile();
+                    if (f != null && f.exists()) {
+                        if (!f.delete()) {
+                            f.deleteOnExit();
+                        }
                     }
-                }
-            } catch(Throwable ignore) { }
+                } catch(Throwable ignore) { }
+            }
         }
-        super.close();
     }
 
     @Override
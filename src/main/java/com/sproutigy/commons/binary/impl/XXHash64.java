@@ -0,0 +1,131 @@
+package com.sproutigy.commons.binary.impl;
+
+import com.sproutigy.commons.binary.Binary;
+import com.sproutigy.commons.binary.Hasher;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of xxHash64.
+ *
+ * @author LukeAheadNET
+ */
+public class XXHash64 implements Hasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE_SIZE = 32;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+    private final ByteBuffer memory = ByteBuffer.allocate(STRIPE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+
+    public XXHash64(long seed) {
+        this.seed = seed;
+        this.v1 = seed + PRIME1 + PRIME2;
+        this.v2 = seed + PRIME2;
+        this.v3 = seed;
+        this.v4 = seed - PRIME1;
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        ByteBuffer input = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = input.position();
+        int limit = input.limit();
+        totalLength += limit - position;
+
+        if (memory.position() > 0) {
+            int fill = Math.min(memory.remaining(), limit - position);
+            input.limit(position + fill);
+            memory.put(input);
+            input.limit(limit);
+            position += fill;
+            if (memory.hasRemaining()) {
+                data.position(limit);
+                return;
+            }
+            processStripe(memory, 0);
+            memory.clear();
+        }
+
+        while (position + STRIPE_SIZE <= limit) {
+            processStripe(input, position);
+            position += STRIPE_SIZE;
+        }
+
+        input.position(position);
+        memory.put(input);
+        data.position(limit);
+    }
+
+    private void processStripe(ByteBuffer buffer, int index) {
+        v1 = round(v1, buffer.getLong(index));
+        v2 = round(v2, buffer.getLong(index + 8));
+        v3 = round(v3, buffer.getLong(index + 16));
+        v4 = round(v4, buffer.getLong(index + 24));
+    }
+
+    @Override
+    public Binary hash() {
+        return Binary.from(ByteBuffer.allocate(Long.SIZE / Byte.SIZE).putLong(hashAsLong()).array());
+    }
+
+    public long hashAsLong() {
+        long h;
+        if (totalLength >= STRIPE_SIZE) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += totalLength;
+
+        int index = 0;
+        int end = memory.position();
+        for (; index + 8 <= end; index += 8) {
+            h ^= round(0, memory.getLong(index));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (index + 4 <= end) {
+            h ^= (memory.getInt(index) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            index += 4;
+        }
+        for (; index < end; index++) {
+            h ^= (memory.get(index) & 0xFF) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+}
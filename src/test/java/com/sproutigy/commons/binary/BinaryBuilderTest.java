@@ -1,11 +1,18 @@
 package com.sproutigy.commons.binary;
 
 import com.sproutigy.commons.binary.impl.ByteArrayBinary;
+import com.sproutigy.commons.binary.impl.CompositeBinary;
+import com.sproutigy.commons.binary.impl.OffHeapBinary;
+import com.sproutigy.commons.binary.impl.PooledBufferAllocator;
 import com.sproutigy.commons.binary.impl.TempFileBinary;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -40,6 +47,102 @@ public class BinaryBuilderTest {
         assertFalse(file.exists());
     }
 
+    @Test
+    public void testBuildChunkedData() throws Exception {
+        byte[] bytes = new byte[3 * ChunkCursor.CHUNK_SIZE + 100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        BinaryBuilder builder = new BinaryBuilder(0, 1024 * 1024);
+        builder.append(bytes, 0, 10);
+        builder.append(new ByteArrayInputStream(bytes, 10, ChunkCursor.CHUNK_SIZE));
+        builder.append((ByteBuffer) direct.position(10 + ChunkCursor.CHUNK_SIZE));
+        assertEquals(bytes.length, builder.length());
+        Binary data = builder.build();
+        assertTrue(((UncheckedBinary)data).decorated instanceof CompositeBinary);
+        assertArrayEquals(bytes, data.asByteArray());
+
+        BinaryBuilder spilled = new BinaryBuilder(0, ChunkCursor.CHUNK_SIZE * 2);
+        spilled.append(new ByteArrayInputStream(bytes));
+        Binary spilledData = spilled.build();
+        assertTrue(((UncheckedBinary)spilledData).decorated instanceof TempFileBinary);
+        assertArrayEquals(bytes, spilledData.asByteArray());
+        spilledData.close();
+    }
+
+    @Test
+    public void testCrossMemoryLimit() throws Exception {
+        byte[] head = new byte[99 * 1024];
+        for (int i = 0; i < head.length; i++) {
+            head[i] = (byte) (i * 3);
+        }
+        byte[] tail = new byte[5 * 1024];
+        Arrays.fill(tail, (byte) 'x');
+        byte[] expected = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, expected, head.length, tail.length);
+
+        BinaryBuilder streamed = new BinaryBuilder();
+        streamed.append(head);
+        streamed.append(new ByteArrayInputStream(tail));
+        assertEquals(expected.length, streamed.length());
+        Binary streamedData = streamed.build();
+        assertArrayEquals(expected, streamedData.asByteArray());
+        streamedData.close();
+
+        BinaryBuilder encoded = new BinaryBuilder();
+        encoded.append(head);
+        encoded.append(new String(tail, "US-ASCII"), Charsets.US_ASCII);
+        assertEquals(expected.length, encoded.length());
+        Binary encodedData = encoded.build();
+        assertArrayEquals(expected, encodedData.asByteArray());
+        encodedData.close();
+
+        PooledBufferAllocator first = new PooledBufferAllocator();
+        PooledBufferAllocator second = new PooledBufferAllocator();
+        BinaryBuilder switched = new BinaryBuilder(0).allocator(first);
+        switched.append(new byte[100]);
+        switched.allocator(second).append(new byte[ChunkCursor.CHUNK_SIZE]);
+        switched.close();
+        first.allocate(ChunkCursor.CHUNK_SIZE);
+        second.allocate(ChunkCursor.CHUNK_SIZE);
+        assertEquals(1, first.getHits());
+        assertEquals(1, second.getHits());
+    }
+
+    @Test
+    public void testPooledAllocator() throws Exception {
+        PooledBufferAllocator allocator = new PooledBufferAllocator();
+        ByteBuffer buffer = allocator.allocate(1000);
+        assertEquals(1000, buffer.limit());
+        assertEquals(1024, buffer.capacity());
+        assertEquals(1, allocator.getMisses());
+        allocator.release(buffer);
+        assertSame(buffer, allocator.allocate(600));
+        assertEquals(1, allocator.getHits());
+        allocator.allocate(2 * PooledBufferAllocator.DEFAULT_MAX_SIZE);
+        assertEquals(1, allocator.getUnpooled());
+
+        PooledBufferAllocator bounded = new PooledBufferAllocator(512, 1024, 0, 0);
+        ByteBuffer direct = bounded.allocateDirect(512);
+        direct.put(0, (byte) 7);
+        ByteBuffer view = direct.duplicate();
+        bounded.release(direct);
+        assertEquals(1, bounded.getDiscarded());
+        assertEquals(7, view.get(0));
+
+        BinaryBuilder spilled = new BinaryBuilder(0, ChunkCursor.CHUNK_SIZE * 2).allocator(allocator);
+        spilled.append(new byte[ChunkCursor.CHUNK_SIZE]);
+        spilled.append(new byte[ChunkCursor.CHUNK_SIZE * 2]);
+        spilled.close();
+        BinaryBuilder reused = new BinaryBuilder(0).allocator(allocator);
+        reused.append(new byte[ChunkCursor.CHUNK_SIZE]);
+        assertEquals(ChunkCursor.CHUNK_SIZE, reused.build().length());
+        assertTrue(allocator.getHits() > 1);
+    }
+
     @Test
     public void testBuildString() throws Exception {
         Charset charset = Charset.forName("US-ASCII");
@@ -51,6 +154,94 @@ public class BinaryBuilderTest {
         assertEquals("HELLO", binary.asString());
     }
 
+    @Test
+    public void testTypedAppend() throws Exception {
+        BinaryBuilder builder = new BinaryBuilder()
+                .appendShort((short) -2)
+                .appendInt(0x01020304, ByteOrder.LITTLE_ENDIAN)
+                .appendLong(Long.MIN_VALUE)
+                .appendDouble(1.5)
+                .appendVarInt(300)
+                .appendVarInt(-1)
+                .appendVarLong(Long.MAX_VALUE)
+                .appendZigZagInt(-64)
+                .appendZigZagLong(Long.MIN_VALUE)
+                .appendFramed(Binary.fromString("abc"));
+        builder.appendFramed(Binary.from(new ByteArrayInputStream(new byte[] { 1, 2 })));
+        Binary data = builder.build();
+        assertEquals("AC02", data.subrange(22, 2).asHex());
+
+        try (BinaryReader reader = data.reader()) {
+            assertEquals(-2, reader.readShort());
+            assertEquals(0x04030201, reader.readInt());
+            assertEquals(Long.MIN_VALUE, reader.readLong());
+            assertEquals(1.5, reader.readDouble(), 0);
+            assertEquals(300, reader.readVarInt());
+            assertEquals(-1, reader.readVarInt());
+            assertEquals(Long.MAX_VALUE, reader.readVarLong());
+            assertEquals(-64, reader.readZigZagInt());
+            assertEquals(Long.MIN_VALUE, reader.readZigZagLong());
+            assertEquals("abc", reader.readFramed().asStringASCII());
+            assertArrayEquals(new byte[] { 1, 2 }, reader.readFramed().asByteArray());
+            assertFalse(reader.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testEncodeCharacters() throws Exception {
+        Charset utf8 = Charset.forName("UTF-8");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < ChunkCursor.CHUNK_SIZE - 1; i++) {
+            text.append('a');
+        }
+        BinaryBuilder builder = new BinaryBuilder(0, 1024 * 1024);
+        builder.append(text, utf8);
+        builder.append(new StringBuilder("\u20ACuro \uD83D\uDE00"), utf8);
+        builder.append("\u0105", Charset.forName("US-ASCII"));
+        text.append("\u20ACuro \uD83D\uDE00?");
+        assertArrayEquals(text.toString().getBytes(utf8), builder.build().asByteArray());
+
+        BinaryBuilder spilled = new BinaryBuilder(0, 16);
+        spilled.append(text, utf8);
+        Binary spilledData = spilled.build();
+        assertTrue(((UncheckedBinary)spilledData).decorated instanceof TempFileBinary);
+        assertEquals(text.toString(), spilledData.asStringUTF8());
+        spilledData.close();
+    }
+
+    @Test
+    public void testBuildOffHeap() throws Exception {
+        byte[] bytes = new byte[3 * ChunkCursor.CHUNK_SIZE + 100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 5);
+        }
+
+        BinaryBuilder builder = new BinaryBuilder(0, 1024 * 1024);
+        builder.append(bytes);
+        OffHeapBinary offHeap = builder.buildOffHeap();
+        assertArrayEquals(bytes, offHeap.asByteArray());
+        assertTrue(offHeap.asByteBuffer(false).isDirect());
+        builder.close();
+        assertEquals(1, offHeap.refCount());
+        assertTrue(offHeap.release());
+
+        OffHeapBinary owned = new BinaryBuilder().append(bytes).buildOffHeap();
+        System.gc();
+        System.runFinalization();
+        assertArrayEquals(bytes, owned.asByteArray());
+        owned.close();
+
+        BinaryBuilder spilled = new BinaryBuilder(0, ChunkCursor.CHUNK_SIZE);
+        spilled.charset(Charset.forName("US-ASCII")).append(bytes);
+        OffHeapBinary spilledOffHeap = spilled.buildOffHeap();
+        assertArrayEquals(bytes, spilledOffHeap.asByteArray());
+        assertEquals(Charset.forName("US-ASCII"), spilledOffHeap.getCharset());
+        spilled.close();
+        assertFalse(spilledOffHeap.isReleased());
+        spilledOffHeap.close();
+        assertTrue(spilledOffHeap.isReleased());
+    }
+
     @Test
     public void testEmpty() throws Exception {
         BinaryBuilder builder1 = new BinaryBuilder();
@@ -0,0 +1,124 @@
+package com.sproutigy.commons.binary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author LukeAheadNET
+ */
+public class BinaryReaderTest {
+
+    private static final byte[] ENCODED = new byte[] {
+            0x01, 0x02, 0x03, 0x04, //int, big-endian
+            0x01, 0x02, 0x03, 0x04, //int, little-endian
+            (byte) 0xAC, 0x02, //varint 300
+            0x7F, //zigzag -64
+            (byte) 0x80, 0x01, //zigzag 64
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, //varint -1
+            0x03, 'a', 'b', 'c', //frame
+            (byte) 0xFF
+    };
+
+    @Test
+    public void testReadMemory() throws Exception {
+        Binary source = Binary.from(ENCODED);
+        try (BinaryReader reader = source.reader()) {
+            assertDecoded(reader);
+            assertFalse(reader.hasRemaining());
+
+            reader.seek(8);
+            assertEquals(300, reader.readVarInt());
+            Binary frame = reader.seek(18).readFramed();
+            assertEquals("abc", frame.asStringASCII());
+            assertEquals(22, reader.position());
+        }
+    }
+
+    @Test
+    public void testReadStream() throws Exception {
+        Binary source = Binary.from(new ByteArrayInputStream(ENCODED));
+        try (BinaryReader reader = source.reader()) {
+            assertDecoded(reader);
+            try {
+                reader.readByte();
+                fail();
+            } catch (EOFException ignore) {
+            }
+        }
+
+        try (BinaryReader reader = Binary.from(new ByteArrayInputStream(ENCODED)).reader()) {
+            reader.skip(18);
+            assertEquals("abc", reader.readFramed().asStringASCII());
+            try {
+                reader.seek(0);
+                fail();
+            } catch (UnsupportedOperationException ignore) {
+            }
+        }
+    }
+
+    @Test
+    public void testReadBinaryOutlivesBuilder() throws Exception {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 3);
+        }
+        Binary read;
+        try (BinaryReader reader = Binary.from(new ByteArrayInputStream(bytes)).reader()) {
+            reader.skip(10);
+            read = reader.readBinary(15000);
+        }
+        System.gc();
+        System.runFinalization();
+        assertArrayEquals(Arrays.copyOfRange(bytes, 10, 15010), read.asByteArray());
+    }
+
+    @Test
+    public void testReadFileAcrossChunks() throws Exception {
+        int count = ChunkCursor.CHUNK_SIZE;
+        BinaryBuilder builder = new BinaryBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append((byte) 0xC8).append((byte) 0x01); //varint 200
+            builder.append(new byte[] { 0, 0, 0, (byte) i });
+        }
+        File file = File.createTempFile("reader", ".bin");
+        try {
+            Files.write(file.toPath(), builder.build().asByteArray());
+            try (BinaryReader reader = Binary.fromFile(file).reader()) {
+                for (int i = 0; i < count; i++) {
+                    assertEquals(200, reader.readVarInt());
+                    assertEquals(i & 0xFF, reader.readInt());
+                }
+                assertFalse(reader.hasRemaining());
+
+                reader.seek(8);
+                assertEquals(1, reader.readInt());
+                reader.seek(6L * count - 4).order(ByteOrder.LITTLE_ENDIAN);
+                assertEquals(((count - 1) & 0xFF) << 24, reader.readInt());
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static void assertDecoded(BinaryReader reader) throws Exception {
+        assertEquals(0x01020304, reader.readInt());
+        assertEquals(0x04030201, reader.order(ByteOrder.LITTLE_ENDIAN).readInt());
+        assertEquals(300, reader.readVarInt());
+        assertEquals(-64, reader.readZigZagInt());
+        assertEquals(64L, reader.readZigZagLong());
+        assertEquals(-1, reader.readVarInt());
+        Binary frame = reader.readFramed();
+        assertEquals("abc", frame.asStringASCII());
+        assertEquals(255, reader.readUnsignedByte());
+        assertEquals(ENCODED.length, reader.position());
+    }
+}
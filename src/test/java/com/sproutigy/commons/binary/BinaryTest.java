@@ -1,12 +1,38 @@
 package com.sproutigy.commons.binary;
 
+import com.sproutigy.commons.binary.impl.CompositeBinary;
+import com.sproutigy.commons.binary.impl.FileBinary;
+import com.sproutigy.commons.binary.impl.FileBlockCache;
+import com.sproutigy.commons.binary.impl.FileRangeBinary;
+import com.sproutigy.commons.binary.impl.MappedFileBinary;
+import com.sproutigy.commons.binary.impl.OffHeapBinary;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.CRC32;
 
 import static org.junit.Assert.*;
 
@@ -50,6 +76,359 @@ public class BinaryTest {
         assertEquals("BC", Binary.fromFile(file).subrange(1,2).asStringASCII());
     }
 
+    @Test
+    public void testFileSubrangeView() throws IOException {
+        String file = Binary.fromString("ABCDEFGHIJK", Charset.forName("US-ASCII")).toTempFile();
+        Binary range = Binary.fromFile(file).subrange(2, 7);
+        assertTrue(range instanceof FileRangeBinary);
+        assertEquals(7, range.length());
+        assertEquals("CDEFGHI", range.asStringASCII());
+        assertEquals("EFG", range.subrange(2, 3).asStringASCII());
+        assertEquals("GHI", range.subrange(4).asStringASCII());
+        assertEquals(Binary.fromString("CDEFGHI"), range);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        range.subrange(1, 3).to(Channels.newChannel(out));
+        assertEquals("DEF", new String(out.toByteArray(), "US-ASCII"));
+    }
+
+    @Test
+    public void testFileMapped() throws IOException {
+        String file = Binary.fromString("ABCDEFGHIJK", Charset.forName("US-ASCII")).toTempFile();
+        Binary mapped = new MappedFileBinary(Paths.get(file), null, 4);
+        assertEquals(11, mapped.length());
+        assertEquals("ABCDEFGHIJK", mapped.asStringASCII());
+        assertEquals("DEFGHI", mapped.subrange(3, 6).asStringASCII());
+        assertEquals("FGH", mapped.subrange(3, 6).subrange(2, 3).asStringASCII());
+        assertEquals("IJK", mapped.subrange(8).asStringASCII());
+        assertEquals(Binary.fromFile(file).hashCode(), mapped.hashCode());
+        assertEquals(0, mapped.compareTo(Binary.fromString("ABCDEFGHIJK")));
+        assertTrue(mapped.compareTo(Binary.fromString("ABCDEFGHIJ")) > 0);
+        assertTrue(mapped.compareTo(Binary.fromString("ABCDEFGHIJKL")) < 0);
+        assertTrue(mapped.compareTo(Binary.fromString("ABCDEFGHIZ")) < 0);
+        ByteBuffer buffer = Binary.fromFileMapped(file).subrange(4, 2).asByteBuffer(false);
+        assertEquals(2, buffer.remaining());
+        assertEquals('E', buffer.get(0));
+    }
+
+    @Test
+    public void testRandomAccess() throws IOException {
+        byte[] bytes = new byte[20];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (0xF0 + i);
+        }
+        String file = Binary.from(bytes).toTempFile();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Binary[] binaries = {
+                Binary.from(bytes),
+                Binary.from(ByteBuffer.wrap(bytes)),
+                Binary.from(direct),
+                Binary.fromFile(file),
+                new MappedFileBinary(Paths.get(file), null, 8),
+                Binary.concat(Binary.from(bytes, 0, 5), Binary.fromFile(file).subrange(5, 10), Binary.from(bytes, 15, 5)),
+                Binary.fromFile(file).subrange(0, 20)
+        };
+        for (Binary binary : binaries) {
+            assertEquals((byte) 0xF3, binary.byteAt(3));
+            assertEquals((short) 0xF6F7, binary.getShort(6));
+            assertEquals(0xF6F7F8F9, binary.getInt(6));
+            assertEquals(0xF9F8F7F6, binary.getInt(6, ByteOrder.LITTLE_ENDIAN));
+            assertEquals(0xF3F4F5F6F7F8F9FAL, binary.getLong(3));
+            assertEquals(0xFAF9F8F7F6F5F4F3L, binary.getLong(3, ByteOrder.LITTLE_ENDIAN));
+
+            ByteBuffer target = ByteBuffer.allocate(30);
+            while (target.position() < 12) {
+                assertTrue(binary.read(8 + target.position(), target) > 0);
+            }
+            assertEquals(Binary.EOF, binary.read(20, target));
+            assertEquals(Binary.from(bytes, 8, 12), Binary.from((ByteBuffer) target.flip()));
+
+            try {
+                binary.getInt(17);
+                fail();
+            } catch (IndexOutOfBoundsException ignore) { }
+            binary.close();
+        }
+
+        try {
+            Binary.from(new ByteArrayInputStream(bytes)).byteAt(0);
+            fail();
+        } catch (UnsupportedOperationException ignore) { }
+    }
+
+    @Test
+    public void testFileBlockCache() throws IOException {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        String file = Binary.from(bytes).toTempFile();
+        FileBlockCache cache = new FileBlockCache(64, 16);
+        FileBinary binary = new FileBinary(file).setBlockCache(cache);
+
+        assertEquals(5, binary.byteAt(5));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0x0C0D0E0F, binary.getInt(12));
+        assertEquals(1, cache.getHits());
+        assertEquals(0x0E0F1011, binary.getInt(14));
+        assertEquals(2, cache.getMisses());
+        assertEquals(Binary.from(bytes, 10, 20), binary.subrange(10, 20));
+        assertEquals(Binary.from(bytes, 90, 10), binary.subrange(90));
+        assertEquals(0, cache.getEvictions());
+        assertEquals(Binary.from(bytes, 40, 40), binary.subrange(40, 40));
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(4, cache.getBlockCount());
+        binary.close();
+
+        Files.write(Paths.get(file), new byte[] { 1, 2, 3 });
+        Files.setLastModifiedTime(Paths.get(file), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertEquals(3, new FileBinary(file).setBlockCache(cache).byteAt(2));
+    }
+
+    @Test
+    public void testFileTransferFallback() throws IOException {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        String file = Binary.from(bytes).toTempFile();
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        WritableByteChannel heapOnly = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                if (src.isDirect()) {
+                    return 0;
+                }
+                int count = src.remaining();
+                received.write(src.array(), src.arrayOffset() + src.position(), count);
+                src.position(src.limit());
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        Binary.fromFile(file).to(heapOnly);
+        assertArrayEquals(bytes, received.toByteArray());
+        received.reset();
+        Binary.fromFile(file).subrange(100, 10000).to(heapOnly);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 100, 10100), received.toByteArray());
+
+        try {
+            new FileRangeBinary(Paths.get(file), 19000, 2000).to(heapOnly);
+            fail();
+        } catch (EOFException ignore) { }
+        new File(file).delete();
+    }
+
+    @Test
+    public void testFileChannelNotRetained() throws IOException {
+        String file = Binary.from(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }).toTempFile();
+        File descriptors = new File("/proc/self/fd");
+        int before = descriptors.isDirectory() ? descriptors.list().length : 0;
+        for (int i = 0; i < 200; i++) {
+            FileBinary binary = new FileBinary(file);
+            assertEquals(0x05060708, binary.getInt(4));
+            binary.subrange(2, 4).to(new ByteArrayOutputStream());
+            binary.to(Channels.newChannel(new ByteArrayOutputStream()));
+            assertFalse(binary.isOpen());
+        }
+        if (descriptors.isDirectory()) {
+            assertTrue(descriptors.list().length < before + 10);
+        }
+
+        FileBinary binary = new FileBinary(file);
+        binary.setBlockCache(new FileBlockCache(4096, 4));
+        try (InputStream stream = binary.subrange(1, 6).asStream()) {
+            for (int i = 2; i <= 7; i++) {
+                assertEquals(i, stream.read());
+            }
+            assertEquals(-1, stream.read());
+        }
+        assertEquals(2, binary.getBlockCache().getMisses());
+        assertEquals(0x05060708, binary.getInt(4));
+        assertEquals(2, binary.getBlockCache().getMisses());
+
+        FileBinary opened = new FileBinary(file).open();
+        assertTrue(opened.isOpen());
+        assertEquals(3, opened.byteAt(2));
+        assertEquals(Binary.from(new byte[] { 3, 4 }), opened.subrange(2, 2));
+        opened.close();
+        assertFalse(opened.isOpen());
+        assertEquals(8, opened.byteAt(7));
+        new File(file).delete();
+    }
+
+    @Test
+    public void testPrimitives() throws IOException {
+        byte[] bytes = { 0x01, 0x02, 0x03, 0x04 };
+        assertEquals(0x01020304, Binary.from(bytes).asInteger());
+        assertEquals(0x04030201, Binary.from(bytes).asInteger(ByteOrder.LITTLE_ENDIAN));
+        assertEquals(0x04030201, Binary.from(new ByteArrayInputStream(bytes)).asInteger(ByteOrder.LITTLE_ENDIAN));
+        assertEquals((short) 0x0304, Binary.from(bytes, 2, 2).asShort());
+        assertEquals(1.5, Binary.from(new double[] { 1.5 }, ByteOrder.LITTLE_ENDIAN).asDouble(ByteOrder.LITTLE_ENDIAN), 0);
+        assertEquals(Long.MIN_VALUE + 5, Binary.from(new ByteArrayInputStream(Binary.from(new long[] { Long.MIN_VALUE + 5 }).asByteArray())).asLong());
+        try {
+            Binary.from(bytes).asShort();
+            fail();
+        } catch (BufferOverflowException ignore) { }
+        try {
+            Binary.from(bytes).asLong();
+            fail();
+        } catch (BufferUnderflowException ignore) { }
+        assertEquals(3, Binary.from(bytes, 2, 2).asByte());
+        assertEquals(1, Binary.from(new ByteArrayInputStream(bytes)).asByte());
+        assertEquals(2, Binary.concat(Binary.from(bytes, 1, 1), Binary.from(bytes)).subrange(0, 3).asByte());
+        try {
+            Binary.EMPTY.asByte();
+            fail();
+        } catch (IndexOutOfBoundsException ignore) { }
+
+        int[] ints = { 1, -2, Integer.MAX_VALUE };
+        assertArrayEquals(Binary.from(ints).asByteArray(), Binary.from(new byte[] { 0, 0, 0, 1, -1, -1, -1, -2, 0x7F, -1, -1, -1 }).asByteArray());
+        assertTrue(Arrays.equals(ints, Binary.from(ints, ByteOrder.LITTLE_ENDIAN).asIntArray(ByteOrder.LITTLE_ENDIAN)));
+        long[] longs = { 1, -2, Long.MAX_VALUE };
+        assertTrue(Arrays.equals(longs, Binary.concat(Binary.from(longs).subrange(0, 12), Binary.from(longs).subrange(12)).asLongArray()));
+        double[] doubles = { 0.5, -2, Double.MAX_VALUE };
+        assertTrue(Arrays.equals(doubles, Binary.from(Binary.from(doubles).asByteBuffer()).asDoubleArray()));
+        try {
+            Binary.from(bytes, 0, 3).asIntArray();
+            fail();
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    public void testConcat() throws IOException {
+        String file = Binary.fromString("FILE", Charset.forName("US-ASCII")).toTempFile();
+        Binary composite = Binary.concat(Binary.fromString("HEAD:"), Binary.fromFile(file), Binary.from(ByteBuffer.wrap(":TAIL".getBytes("US-ASCII"))));
+        assertTrue(composite instanceof CompositeBinary);
+        assertEquals(14, composite.length());
+        assertEquals("HEAD:FILE:TAIL", composite.asStringASCII());
+        assertEquals(Binary.fromString("HEAD:FILE:TAIL"), composite);
+        assertEquals("D:FILE:T", composite.subrange(3, 8).asStringASCII());
+        assertEquals("IL", composite.subrange(6, 2).asStringASCII());
+        assertEquals("TAIL", composite.subrange(10).asStringASCII());
+
+        File target = File.createTempFile("binary-test", ".tmp");
+        target.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            composite.to(channel);
+            Binary.concat(Binary.fromString("X"), Binary.fromString("Y")).to(channel);
+        }
+        assertEquals("HEAD:FILE:TAILXY", Binary.fromFile(target).asStringASCII());
+
+        assertEquals(Binary.EMPTY, Binary.concat());
+    }
+
+    @Test
+    public void testCompare() throws IOException {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        String file = Binary.from(bytes).toTempFile();
+
+        assertEquals(Binary.from(bytes), Binary.from(direct));
+        assertEquals(Binary.from(direct), Binary.fromFile(file));
+        assertEquals(0, Binary.fromFile(file).compareTo(Binary.from(new ByteArrayInputStream(bytes))));
+        assertEquals(Binary.from(bytes, 10, 50), Binary.fromFile(file).subrange(10, 50));
+        assertNotEquals(Binary.from(bytes, 10, 50), Binary.from(bytes, 10, 51));
+
+        for (int position : new int[] { 0, 7, 8, 63, 99 }) {
+            byte[] other = bytes.clone();
+            other[position] = (byte) 0xFF;
+            assertTrue(Binary.from(bytes).compareTo(Binary.from(other)) < 0);
+            assertTrue(Binary.from(other).compareTo(Binary.fromFile(file)) > 0);
+        }
+        assertTrue(Binary.from(bytes, 0, 99).compareTo(Binary.from(direct)) < 0);
+        assertTrue(Binary.from(direct).compareTo(Binary.from(bytes, 0, 99)) > 0);
+    }
+
+    @Test
+    public void testHashCode() throws IOException {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 13);
+        }
+        String file = Binary.from(bytes).toTempFile();
+        int expected = Arrays.hashCode(new byte[0]);
+        assertEquals(expected, Binary.EMPTY.hashCode());
+
+        int hashCode = Binary.from(bytes).hashCode();
+        assertEquals(hashCode, Binary.fromFile(file).hashCode());
+        assertEquals(hashCode, Binary.from(ByteBuffer.wrap(bytes)).hashCode());
+        assertEquals(hashCode, Binary.from(new ByteArrayInputStream(bytes)).hashCode());
+        assertEquals(Binary.from(bytes, 5, 20).hashCode(), Binary.fromFile(file).subrange(5, 20).hashCode());
+    }
+
+    @Test
+    public void testHash64And128() throws IOException {
+        assertEquals(0xEF46DB3751D8E999L, Binary.EMPTY.hash64());
+        assertEquals(0x44BC2CF5AD770999L, Binary.fromString("abc").hash64());
+        assertEquals("6145F501578671E2877DBA2BE487AF7E", Binary.fromString("foo").hash128().asHex());
+        assertEquals("00000000000000000000000000000000", Binary.EMPTY.hash128().asHex());
+
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        Binary whole = Binary.from(bytes);
+        Binary chunked = Binary.concat(Binary.from(bytes, 0, 3), Binary.from(bytes, 3, 30), Binary.from(bytes, 33, 500), Binary.from(bytes, 533, 467));
+        assertEquals(whole.hash64(), chunked.hash64());
+        assertEquals(whole.hash128(), chunked.hash128());
+        assertEquals(whole.hash64(), Binary.fromFile(whole.toTempFile()).hash64());
+        assertEquals(Binary.from(bytes, 0, 31).hash64(), Binary.concat(Binary.from(bytes, 0, 15), Binary.from(bytes, 15, 16)).hash64());
+    }
+
+    @Test
+    public void testDigestAndChecksums() throws IOException {
+        Binary data = Binary.fromString("123456789", Charsets.US_ASCII);
+        assertEquals(0xCBF43926L, data.crc32());
+        assertEquals(0xE3069283L, data.crc32c());
+        assertEquals(0x11E60398L, Binary.fromString("Wikipedia").adler32());
+        assertEquals("15E2B0D3C33891EBB0F1EF609EC419420C20E320CE94C65FBC8C3312448EB225", data.digest("SHA-256").asHex());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(9);
+        direct.put("123456789".getBytes("US-ASCII")).flip();
+        assertEquals(0xCBF43926L, Binary.from(direct).crc32());
+        assertEquals(0xE3069283L, Binary.from(direct).crc32c());
+        assertEquals(0xE3069283L, Binary.fromFile(data.toTempFile()).crc32c());
+        assertEquals(data.digest("SHA-256"), Binary.from(direct).digest("SHA-256"));
+    }
+
+    @Test
+    public void testTee() throws Exception {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 3);
+        }
+        Binary source = Binary.from(new ByteArrayInputStream(bytes));
+        assertFalse(source.hasLength());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryBuilder builder = new BinaryBuilder();
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        CRC32 crc = new CRC32();
+        long length = source.tee().to(out).to(builder).digest(digest).checksum(crc).run();
+
+        assertEquals(bytes.length, length);
+        assertEquals(bytes.length, source.length());
+        assertArrayEquals(bytes, out.toByteArray());
+        assertEquals(Binary.from(bytes), builder.build());
+        assertEquals(Binary.from(bytes).digest("SHA-256"), Binary.from(digest.digest()));
+        assertEquals(Binary.from(bytes).crc32(), crc.getValue());
+    }
+
     @Test
     public void testHex() {
         UncheckedBinary b = Binary.fromHex("48454c4c4f");
@@ -77,6 +456,95 @@ public class BinaryTest {
         assertArrayEquals(bytes, Binary.fromBase64("zs_Q0dI").asByteArray());
     }
 
+    @Test
+    public void testBaseEncodingCodec() throws IOException {
+        String[] vectors = { "", "Zg==", "Zm8=", "Zm9v", "Zm9vYg==", "Zm9vYmE=", "Zm9vYmFy" };
+        for (int i = 0; i < vectors.length; i++) {
+            UncheckedBinary data = Binary.fromString("foobar".substring(0, i), Charsets.US_ASCII);
+            assertEquals(vectors[i], data.asBase64());
+            assertEquals(vectors[i].replace('=', '.'), data.asBase64(BaseEncoding.Padding.SAFE));
+            assertEquals(data, Binary.fromBase64(vectors[i]));
+            assertEquals(data, Binary.fromBase64(vectors[i].replace("=", "")));
+        }
+        assertEquals(Binary.fromString("foobar"), Binary.fromBase64("Zm9v\r\nYmFy"));
+        assertArrayEquals(new byte[] { 0x41 }, Binary.fromBase64("QQ==\n").asByteArray());
+        assertArrayEquals(new byte[] { 0x41 }, Binary.fromBase64("QQ=\r\n=  ").asByteArray());
+        assertArrayEquals(new byte[] { 0x41 }, Binary.fromBase64(new StringReader("QQ==\n")).asByteArray());
+
+        byte[] bytes = new byte[ChunkCursor.CHUNK_SIZE * 2 + 1];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        for (BaseEncoding.Dialect dialect : BaseEncoding.Dialect.values()) {
+            for (BaseEncoding.Padding padding : BaseEncoding.Padding.values()) {
+                String base64 = Binary.from(bytes).asBase64(dialect, padding);
+                assertEquals(BaseEncoding.base64Length(bytes.length, padding), base64.length());
+                assertEquals(base64, Binary.from(new ByteArrayInputStream(bytes), bytes.length).asBase64(dialect, padding));
+                assertArrayEquals(bytes, Binary.fromBase64(base64).asByteArray());
+            }
+        }
+
+        String hex = Binary.from(bytes).asHex();
+        assertEquals(hex, Binary.from(new ByteArrayInputStream(bytes)).asHex());
+        byte[] longer = Arrays.copyOf(bytes, bytes.length + 10);
+        assertEquals(hex, Binary.from(new ByteArrayInputStream(longer), bytes.length).asHex());
+        assertEquals(Binary.from(bytes).asBase64(), Binary.from(new ByteArrayInputStream(longer), bytes.length).asBase64());
+        assertArrayEquals(bytes, Binary.fromHex(hex.toLowerCase()).asByteArray());
+
+        try {
+            Binary.fromHex("ABC");
+            fail();
+        } catch (IllegalArgumentException ignore) { }
+        try {
+            Binary.fromBase64("Zm9v*");
+            fail();
+        } catch (IllegalArgumentException ignore) { }
+    }
+
+    @Test
+    public void testStreamingBaseEncoding() throws IOException {
+        byte[] bytes = new byte[ChunkCursor.CHUNK_SIZE * 3 + 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 13);
+        }
+        UncheckedBinary data = Binary.from(bytes);
+        String base64 = data.asBase64(BaseEncoding.Dialect.SAFE, BaseEncoding.Padding.SAFE);
+
+        StringWriter writer = new StringWriter();
+        Binary.from(new ByteArrayInputStream(bytes)).encodeBase64To(writer, BaseEncoding.Dialect.SAFE, BaseEncoding.Padding.SAFE);
+        assertEquals(base64, writer.toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.encodeHexTo(out);
+        assertEquals(data.asHex(), out.toString("US-ASCII"));
+
+        UncheckedBinary view = data.base64View(BaseEncoding.Dialect.SAFE, BaseEncoding.Padding.SAFE);
+        assertTrue(view.hasLength());
+        assertEquals(base64.length(), view.length());
+        assertEquals(base64, view.asString());
+        assertEquals(base64, Binary.from(view.asByteArray()).asStringASCII());
+
+        assertArrayEquals(bytes, Binary.fromBase64(new StringReader(base64)).asByteArray());
+        assertArrayEquals(bytes, Binary.fromHex(new StringReader(data.asHex().toLowerCase())).asByteArray());
+        assertEquals(Binary.EMPTY, Binary.fromBase64(new StringReader("")));
+
+        //decoded data outlives finalized builders, also when spilled to temporary file
+        byte[] big = new byte[200 * 1024];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (byte) (i * 7);
+        }
+        Binary smallDecoded = Binary.fromBase64(new StringReader(base64));
+        Binary bigDecoded = Binary.fromBase64(new StringReader(Binary.from(big).asBase64()));
+        Binary hexDecoded = Binary.fromHex(new StringReader(Binary.from(big).asHex()));
+        System.gc();
+        System.runFinalization();
+        assertArrayEquals(bytes, smallDecoded.asByteArray());
+        assertArrayEquals(big, bigDecoded.asByteArray());
+        assertArrayEquals(big, hexDecoded.asByteArray());
+        bigDecoded.close();
+        hexDecoded.close();
+    }
+
     @Test
     public void testStringCharset() {
         String s = "tęśt";
@@ -95,4 +563,140 @@ public class BinaryTest {
         assertEquals("t??t", t2);
     }
 
+    @Test
+    public void testBufferStreams() throws IOException {
+        byte[] bytes = new byte[3 * 8192 + 5];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Binary binary = Binary.from(direct);
+
+        InputStream in = binary.asStream();
+        assertEquals(0, in.read());
+        assertEquals(31, in.read());
+        assertEquals(bytes[2] & 0xFF, in.read());
+        assertEquals(bytes.length - 3, in.available());
+        in.mark(0);
+        byte[] target = new byte[10];
+        assertEquals(10, in.read(target, 0, 10));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 3, 13), target);
+        in.reset();
+        assertEquals(100, in.skip(100));
+        assertEquals(bytes[103] & 0xFF, in.read());
+        assertEquals(bytes.length - 104, in.skip(Long.MAX_VALUE));
+        assertEquals(-1, in.read(target, 0, 10));
+        assertEquals(0, direct.position());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.to(out);
+        assertArrayEquals(bytes, out.toByteArray());
+        out.reset();
+        Binary.from(bytes, 5, 100).to(out);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 5, 105), out.toByteArray());
+
+        InputStream composite = Binary.concat(Binary.from(bytes, 0, 10), binary).asStream();
+        assertEquals(15, composite.skip(15));
+        assertEquals(bytes[5] & 0xFF, composite.read());
+    }
+
+    @Test
+    public void testChannelTransfer() throws IOException {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 13);
+        }
+        File source = File.createTempFile("source", ".bin");
+        File target = File.createTempFile("target", ".bin");
+        try {
+            Files.write(source.toPath(), bytes);
+            Binary file = Binary.fromFile(source);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            file.to(Channels.newChannel(out));
+            assertArrayEquals(bytes, out.toByteArray());
+            out.reset();
+            file.subrange(100, 5000).to(Channels.newChannel(out));
+            assertArrayEquals(Arrays.copyOfRange(bytes, 100, 5100), out.toByteArray());
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(10);
+            direct.put(bytes, 0, 10).flip();
+            try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+                Binary.from(direct).to(channel);
+                Binary.from(new ByteArrayInputStream(bytes, 10, 990)).to(channel);
+                file.subrange(1000).to(channel);
+                assertEquals(bytes.length, channel.position());
+            }
+            assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+            assertEquals(0, direct.position());
+
+            try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+                channel.position(5);
+                out.reset();
+                Binary.from(channel).to(Channels.newChannel(out));
+                assertArrayEquals(Arrays.copyOfRange(bytes, 5, bytes.length), out.toByteArray());
+                assertEquals(bytes.length, channel.position());
+            }
+            file.close();
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testOffHeap() throws IOException {
+        byte[] bytes = new byte[5000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7 + 3);
+        }
+        OffHeapBinary.setLeakDetection(true);
+        try {
+            long allocated = OffHeapBinary.getAllocatedBytes();
+            OffHeapBinary binary = OffHeapBinary.copyOf(Binary.from(new ByteArrayInputStream(bytes)), BufferAllocator.getDefault(), 1000);
+            assertEquals(bytes.length, binary.length());
+            assertEquals(allocated + bytes.length, OffHeapBinary.getAllocatedBytes());
+            assertEquals(5, binary.getUnderlyingByteBuffers().length);
+            assertTrue(binary.getUnderlyingByteBuffers()[0].isDirect());
+            assertArrayEquals(bytes, binary.asByteArray());
+            assertEquals(Binary.from(bytes), binary);
+            assertEquals(Binary.from(bytes, 998, 4).asInteger(ByteOrder.LITTLE_ENDIAN), binary.getInt(998, ByteOrder.LITTLE_ENDIAN));
+            assertEquals(bytes[4999], binary.byteAt(4999));
+
+            OffHeapBinary view = binary.subrange(990, 20);
+            assertArrayEquals(Arrays.copyOfRange(bytes, 990, 1010), view.asByteArray());
+            assertEquals(Binary.from(bytes, 995, 8).asLong(), view.getLong(5));
+            OffHeapBinary retained = binary.retainedSubrange(4000, 1000);
+            assertEquals(2, binary.refCount());
+            assertEquals(1, OffHeapBinary.getUnreleased().size());
+
+            binary.close();
+            binary.close();
+            assertFalse(binary.isReleased());
+            assertArrayEquals(Arrays.copyOfRange(bytes, 4000, 5000), retained.asByteArray());
+            retained.close();
+            assertTrue(binary.isReleased());
+            assertEquals(0, OffHeapBinary.getUnreleased().size());
+            assertEquals(allocated, OffHeapBinary.getAllocatedBytes());
+            try {
+                view.byteAt(0);
+                fail();
+            } catch (IllegalStateException ignore) {
+            }
+            try {
+                binary.retain();
+                fail();
+            } catch (IllegalStateException ignore) {
+            }
+
+            OffHeapBinary small = OffHeapBinary.copyOf(Binary.fromString("hello"));
+            assertEquals("hello", small.asStringASCII());
+            assertEquals(1, OffHeapBinary.getUnreleased().size());
+            assertTrue(small.release());
+        } finally {
+            OffHeapBinary.setLeakDetection(false);
+        }
+    }
+
 }
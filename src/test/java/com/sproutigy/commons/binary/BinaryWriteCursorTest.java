@@ -0,0 +1,197 @@
+package com.sproutigy.commons.binary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author LukeAheadNET
+ */
+public class BinaryWriteCursorTest {
+
+    private static byte[] generate(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 17 + i / 251);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testNonBlockingPipe() throws Exception {
+        byte[] bytes = generate(300000);
+        File file = File.createTempFile("cursor", ".bin");
+        try {
+            Files.write(file.toPath(), Arrays.copyOfRange(bytes, 1000, 200000));
+            ByteBuffer direct = ByteBuffer.allocateDirect(50000);
+            direct.put(bytes, 200000, 50000).flip();
+            Binary data = Binary.concat(
+                    Binary.from(bytes, 0, 1000),
+                    Binary.fromFile(file),
+                    Binary.from(direct),
+                    Binary.from(new ByteArrayInputStream(bytes, 250000, 50000)));
+
+            Pipe pipe = Pipe.open();
+            pipe.sink().configureBlocking(false);
+            pipe.source().configureBlocking(false);
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+            try (BinaryWriteCursor cursor = data.writeCursor()) {
+                int rounds = 0;
+                while (cursor.hasRemaining()) {
+                    cursor.writeTo(pipe.sink());
+                    int readlen;
+                    while ((readlen = pipe.source().read(buffer)) > 0) {
+                        received.write(buffer.array(), 0, readlen);
+                        buffer.clear();
+                    }
+                    rounds++;
+                }
+                assertTrue(rounds > 1);
+                assertEquals(bytes.length, cursor.position());
+                assertEquals(0, cursor.writeTo(pipe.sink()));
+            }
+            assertArrayEquals(bytes, received.toByteArray());
+            assertEquals(0, direct.position());
+            data.close();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testThrottledChannel() throws Exception {
+        byte[] bytes = generate(20000);
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        WritableByteChannel throttled = new WritableByteChannel() {
+            private boolean full;
+
+            @Override
+            public int write(ByteBuffer src) {
+                full = !full;
+                if (full) {
+                    return 0;
+                }
+                int count = Math.min(src.remaining(), 700);
+                for (int i = 0; i < count; i++) {
+                    received.write(src.get());
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+
+        Binary data = Binary.concat(Binary.from(bytes, 0, 5000), Binary.from(bytes, 5000, 15000).subrange(0, 15000));
+        try (BinaryWriteCursor cursor = Binary.from(new ByteArrayInputStream(bytes)).writeCursor()) {
+            while (cursor.hasRemaining()) {
+                cursor.writeTo(throttled);
+            }
+        }
+        assertArrayEquals(bytes, received.toByteArray());
+
+        received.reset();
+        try (BinaryWriteCursor cursor = data.writeCursor()) {
+            while (cursor.hasRemaining()) {
+                cursor.writeTo(throttled);
+            }
+        }
+        assertArrayEquals(bytes, received.toByteArray());
+    }
+
+    @Test
+    public void testStagedView() throws Exception {
+        Binary view = Binary.from(generate(4 * 1024 * 1024)).base64View();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        long started = System.nanoTime();
+        try (BinaryWriteCursor cursor = view.writeCursor()) {
+            WritableByteChannel channel = Channels.newChannel(received);
+            while (cursor.hasRemaining()) {
+                cursor.writeTo(channel);
+            }
+        }
+        assertTrue(System.nanoTime() - started < 3000000000L);
+        assertArrayEquals(view.asByteArray(), received.toByteArray());
+    }
+
+    @Test
+    public void testWriteAll() throws Exception {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final int[] calls = new int[1];
+        GatheringByteChannel counting = new GatheringByteChannel() {
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) {
+                calls[0]++;
+                long count = 0;
+                for (int i = offset; i < offset + length; i++) {
+                    count += write(srcs[i]);
+                    calls[0]--;
+                }
+                return count;
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs) {
+                return write(srcs, 0, srcs.length);
+            }
+
+            @Override
+            public int write(ByteBuffer src) {
+                calls[0]++;
+                int count = src.remaining();
+                while (src.hasRemaining()) {
+                    received.write(src.get());
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        byte[] bytes = generate(13000);
+        List<Binary> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(Binary.from(bytes, i * 10, 10));
+        }
+        File file = File.createTempFile("records", ".bin");
+        try {
+            Files.write(file.toPath(), Arrays.copyOfRange(bytes, 10000, 13000));
+            records.add(Binary.fromFile(file));
+
+            assertEquals(bytes.length, Binary.writeAll(counting, records));
+            assertArrayEquals(bytes, received.toByteArray());
+            assertTrue(calls[0] < 10);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.sproutigy.commons.binary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author LukeAheadNET
+ */
+public class ConcurrentBinaryMapTest {
+
+    private static Binary key(int i) {
+        return Binary.fromString("key-" + i);
+    }
+
+    private static UncheckedBinary number(int value) {
+        return Binary.from(new int[] {value});
+    }
+
+    @Test
+    public void testOperations() throws Exception {
+        ConcurrentBinaryMap map = new ConcurrentBinaryMap();
+        assertNull(map.put(key(1), number(1)));
+        assertEquals(number(1), map.put(key(1), number(2)));
+        assertEquals(number(2), map.putIfAbsent(key(1), number(3)));
+        assertNull(map.putIfAbsent(key(2), number(3)));
+        assertEquals(number(3), map.get(Binary.from(new ByteArrayInputStream("key-2".getBytes("UTF-8")))));
+        assertNull(map.get("key-2"));
+
+        assertFalse(map.replace(key(1), number(1), number(4)));
+        assertTrue(map.replace(key(1), number(2), number(4)));
+        assertEquals(number(4), map.replace(key(1), number(5)));
+        assertNull(map.replace(key(9), number(5)));
+        assertFalse(map.remove(key(1), number(4)));
+        assertTrue(map.remove(key(1), number(5)));
+        assertNull(map.remove(key(1)));
+        assertEquals(number(3), map.remove(key(2)));
+        assertTrue(map.isEmpty());
+
+        ConcurrentBinaryMap.MergeFunction removal = new ConcurrentBinaryMap.MergeFunction() {
+            @Override
+            public Binary apply(Binary oldValue, Binary value) {
+                return null;
+            }
+        };
+        assertEquals(number(7), map.mergeValue(key(3), number(7), removal));
+        assertNull(map.mergeValue(key(3), number(7), removal));
+        assertFalse(map.containsKey(key(3)));
+
+        assertEquals(number(6), map.computeIfAbsentStriped(key(4), new ConcurrentBinaryMap.ValueFunction() {
+            @Override
+            public Binary apply(Binary key) {
+                return number(6);
+            }
+        }));
+        assertNull(map.computeIfAbsentStriped(key(5), new ConcurrentBinaryMap.ValueFunction() {
+            @Override
+            public Binary apply(Binary key) {
+                return null;
+            }
+        }));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testInsertionOrder() throws Exception {
+        ConcurrentBinaryMap map = new ConcurrentBinaryMap(16, true);
+        for (int i = 0; i < 100; i++) {
+            map.put(key(i), number(i));
+        }
+        map.remove(key(50));
+        map.put(key(10), number(-10));
+        map.put(key(50), number(50));
+
+        List<Integer> order = new ArrayList<>();
+        for (Map.Entry<Binary, Binary> entry : map.entrySet()) {
+            order.add(Integer.parseInt(entry.getKey().asStringUTF8().substring(4)));
+        }
+        assertEquals(100, order.size());
+        assertEquals(Integer.valueOf(0), order.get(0));
+        assertEquals(Integer.valueOf(10), order.get(10));
+        assertEquals(Integer.valueOf(51), order.get(50));
+        assertEquals(Integer.valueOf(50), order.get(99));
+
+        Iterator<Map.Entry<Binary, Binary>> iterator = map.entrySet().iterator();
+        Map.Entry<Binary, Binary> first = iterator.next();
+        assertEquals(number(0), first.setValue(number(100)));
+        assertEquals(number(100), map.get(key(0)));
+        iterator.remove();
+        assertFalse(map.containsKey(key(0)));
+        assertEquals(99, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final ConcurrentBinaryMap map = new ConcurrentBinaryMap(16, true);
+        final AtomicInteger computations = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int threadCount = 8;
+        final int iterations = 2000;
+        final ConcurrentBinaryMap.MergeFunction sum = new ConcurrentBinaryMap.MergeFunction() {
+            @Override
+            public Binary apply(Binary oldValue, Binary value) {
+                try {
+                    return number(oldValue.asInteger() + value.asInteger());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        final ConcurrentBinaryMap.ValueFunction compute = new ConcurrentBinaryMap.ValueFunction() {
+            @Override
+            public Binary apply(Binary key) {
+                computations.incrementAndGet();
+                return key;
+            }
+        };
+        final List<Throwable> failures = new ArrayList<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < iterations; i++) {
+                            map.mergeValue(key(i % 10), number(1), sum);
+                            map.computeIfAbsentStriped(key(100 + i % 50), compute);
+                            map.put(key(1000 + i), number(i));
+                            map.remove(key(1000 + i));
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(threadCount * iterations / 10, map.get(key(i)).asInteger());
+        }
+        assertEquals(50, computations.get());
+        assertEquals(60, map.size());
+        int iterated = 0;
+        for (Map.Entry<Binary, Binary> ignored : map.entrySet()) {
+            iterated++;
+        }
+        assertEquals(60, iterated);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sproutigy.commons.binary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author LukeAheadNET
+ */
+public class FlatBinaryMapTest {
+
+    private static Binary key(int i) {
+        return Binary.fromString("key-" + i);
+    }
+
+    private static Binary value(int i) {
+        return Binary.fromString("value-" + i + "-" + i * 31);
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        testPutGetRemove(new FlatBinaryMap(4, true, 256, BufferAllocator.getDefault()));
+        testPutGetRemove(new FlatBinaryMap(4, false, 256, BufferAllocator.UNPOOLED));
+    }
+
+    private void testPutGetRemove(FlatBinaryMap map) throws Exception {
+        try {
+            for (int i = 0; i < 5000; i++) {
+                assertNull(map.put(key(i), value(i)));
+            }
+            assertEquals(5000, map.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(value(i), map.get(key(i)));
+            }
+            assertNull(map.get(key(5000)));
+            assertNull(map.get("key-1"));
+
+            assertEquals(value(7), map.put(key(7), Binary.fromString("seven")));
+            assertEquals("seven", map.get(key(7)).asStringUTF8());
+            assertEquals(value(8), map.remove(key(8)));
+            assertNull(map.remove(key(8)));
+            assertFalse(map.containsKey(key(8)));
+            assertEquals(4999, map.size());
+            assertTrue(map.getGarbageLength() > 0);
+
+            byte[] big = new byte[1000];
+            big[999] = 1;
+            map.put(Binary.from(new ByteArrayInputStream(new byte[] {1, 2})), Binary.from(big));
+            assertArrayEquals(big, map.get(Binary.concat(Binary.from(new byte[] {1}), Binary.from(new byte[] {2}))).asByteArray());
+            assertEquals(value(9), map.get(Binary.concat(Binary.fromString("key-"), Binary.fromString("9"))));
+
+            Set<Binary> keys = new HashSet<>();
+            for (Map.Entry<Binary, Binary> entry : map.entrySet()) {
+                keys.add(entry.getKey());
+            }
+            assertEquals(5000, keys.size());
+            assertFalse(keys.contains(key(8)));
+
+            Iterator<Binary> iterator = map.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+            assertEquals(4999, map.size());
+
+            long before = map.getMemoryUsage();
+            map.compact();
+            assertEquals(0, map.getGarbageLength());
+            assertTrue(map.getMemoryUsage() <= before);
+            assertEquals(4999, map.size());
+            assertEquals("seven", map.get(key(7)).asStringUTF8());
+            assertEquals(value(4999), map.get(key(4999)));
+            assertArrayEquals(big, map.get(Binary.from(new byte[] {1, 2})).asByteArray());
+
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertNull(map.get(key(0)));
+            map.put(key(1), value(1));
+            assertEquals(value(1), map.get(key(1)));
+        } finally {
+            map.close();
+        }
+    }
+
+    @Test
+    public void testKeyKinds() throws Exception {
+        File file = File.createTempFile("key", ".bin");
+        try (FlatBinaryMap map = new FlatBinaryMap()) {
+            Files.write(file.toPath(), "file key".getBytes("UTF-8"));
+            map.put(Binary.fromFile(file), Binary.from(new byte[] {1}));
+            ByteBuffer direct = ByteBuffer.allocateDirect(8);
+            direct.put("file key".getBytes("UTF-8")).flip();
+
+            assertArrayEquals(new byte[] {1}, map.get(Binary.from(direct)).asByteArray());
+            assertArrayEquals(new byte[] {1}, map.get(Binary.fromString("file key")).asByteArray());
+            assertArrayEquals(new byte[] {1}, map.get(Binary.fromFile(file)).asByteArray());
+            assertNull(map.get(Binary.fromString("file kez")));
+            assertEquals(0, direct.position());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
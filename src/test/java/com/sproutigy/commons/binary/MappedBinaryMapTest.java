@@ -0,0 +1,220 @@
+package com.sproutigy.commons.binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author LukeAheadNET
+ */
+public class MappedBinaryMapTest {
+
+    private Path directory;
+    private Path base;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("mappedmap");
+        base = directory.resolve("map");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Binary key(int i) {
+        return Binary.fromString("key-" + i);
+    }
+
+    private static Binary value(int i) {
+        return Binary.fromString("value-" + i + "-" + i * 31);
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        try (MappedBinaryMap map = new MappedBinaryMap(base, 4)) {
+            assertTrue(map.isEmpty());
+            for (int i = 0; i < 5000; i++) {
+                assertNull(map.put(key(i), value(i)));
+            }
+            assertEquals(5000, map.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(value(i), map.get(key(i)));
+            }
+            assertNull(map.get(key(5000)));
+            assertNull(map.get("key-1"));
+
+            assertEquals(value(7), map.put(key(7), Binary.fromString("seven")));
+            assertEquals("seven", map.get(key(7)).asStringUTF8());
+            assertEquals(value(8), map.remove(key(8)));
+            assertNull(map.remove(key(8)));
+            assertFalse(map.containsKey(key(8)));
+            assertTrue(map.containsKey(key(9)));
+            assertEquals(4999, map.size());
+            assertTrue(map.getGarbageLength() > 0);
+
+            map.put(Binary.from(new ByteArrayInputStream(new byte[] {1, 2})), Binary.from(new ByteArrayInputStream(new byte[] {3, 4, 5})));
+            assertArrayEquals(new byte[] {3, 4, 5}, map.get(Binary.from(new byte[] {1, 2})).asByteArray());
+
+            Set<Binary> keys = new HashSet<>();
+            for (Map.Entry<Binary, Binary> entry : map.entrySet()) {
+                keys.add(entry.getKey());
+            }
+            assertEquals(5000, keys.size());
+            assertTrue(keys.contains(key(0)));
+            assertFalse(keys.contains(key(8)));
+
+            Iterator<Binary> iterator = map.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+            assertEquals(4999, map.size());
+
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertNull(map.get(key(0)));
+            map.put(key(1), value(1));
+            assertEquals(value(1), map.get(key(1)));
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        Binary retained;
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            for (int i = 0; i < 1000; i++) {
+                map.put(key(i), value(i));
+            }
+            map.remove(key(3));
+            retained = map.get(key(4));
+        }
+        assertEquals(value(4), retained);
+
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(999, map.size());
+            assertEquals(value(999), map.get(key(999)));
+            assertNull(map.get(key(3)));
+            map.put(key(3), value(3));
+        }
+
+        //data appended after last index update and a torn record at the end
+        try (FileChannel channel = FileChannel.open(base.resolveSibling("map.index"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long dataLength = Files.size(base.resolveSibling("map.data"));
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 32);
+            assertEquals(dataLength, header.getLong(0));
+            header.clear();
+            header.putLong(0, 16);
+            channel.write(header, 32);
+        }
+        try (FileChannel channel = FileChannel.open(base.resolveSibling("map.data"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 0, 0, 0, 5, 0, 0}));
+        }
+        long dataLength;
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(1000, map.size());
+            assertEquals(value(3), map.get(key(3)));
+            assertEquals(value(500), map.get(key(500)));
+            dataLength = map.getDataLength();
+        }
+        assertEquals(dataLength, Files.size(base.resolveSibling("map.data")));
+
+        Files.delete(base.resolveSibling("map.index"));
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(1000, map.size());
+            assertEquals(value(0), map.get(key(0)));
+            assertEquals(value(3), map.get(key(3)));
+        }
+    }
+
+    @Test
+    public void testUpdatesDoNotRemap() throws Exception {
+        Path maps = Paths.get("/proc/self/maps");
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            map.put(key(0), value(0));
+            int before = Files.isReadable(maps) ? Files.readAllLines(maps, Charsets.US_ASCII).size() : 0;
+            for (int i = 0; i < 20000; i++) {
+                map.put(key(0), value(i));
+                assertEquals(value(i), map.get(key(0)));
+            }
+            if (Files.isReadable(maps)) {
+                assertTrue(Files.readAllLines(maps, Charsets.US_ASCII).size() < before + 100);
+            }
+        }
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(Files.size(base.resolveSibling("map.data")), map.getDataLength());
+            assertEquals(value(19999), map.get(key(0)));
+        }
+    }
+
+    @Test
+    public void testClearKeepsViews() throws Exception {
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            for (int i = 0; i < 100; i++) {
+                map.put(key(i), value(i));
+            }
+            Binary retained = map.get(key(42));
+            map.clear();
+            assertEquals(value(42), retained);
+            assertEquals(16, map.getDataLength());
+            map.put(key(1), value(1));
+            assertEquals(value(1), map.get(key(1)));
+        }
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        Binary retained;
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            for (int i = 0; i < 2000; i++) {
+                map.put(key(i), value(i));
+            }
+            for (int i = 0; i < 2000; i += 2) {
+                map.remove(key(i));
+            }
+            map.put(key(1), Binary.fromString("one"));
+            retained = map.get(key(5));
+
+            long before = map.getDataLength();
+            map.compact();
+            assertEquals(0, map.getGarbageLength());
+            assertTrue(map.getDataLength() < before / 2);
+            assertEquals(1000, map.size());
+            assertEquals("one", map.get(key(1)).asStringUTF8());
+            assertEquals(value(1999), map.get(key(1999)));
+            assertNull(map.get(key(2)));
+            assertEquals(value(5), retained);
+
+            map.put(key(2), value(2));
+        }
+
+        try (MappedBinaryMap map = new MappedBinaryMap(base)) {
+            assertEquals(1001, map.size());
+            assertEquals(value(2), map.get(key(2)));
+            assertEquals(value(3), map.get(key(3)));
+        }
+    }
+}